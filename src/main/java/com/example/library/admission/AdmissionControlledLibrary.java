@@ -0,0 +1,163 @@
+package com.example.library.admission;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookAvailability;
+import com.example.library.domain.BookQuery;
+import com.example.library.service.Library;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link Library} decorator that admits calls per {@link OperationClass}, each with its own adaptive concurrency
+ * limit. Calls over the limit fail fast with {@link OverloadedException}, so a storm of prefix searches cannot
+ * queue up in front of borrows.
+ * <p>
+ * {@link #addBook(Book, int)} and the lazy streams are not admission-controlled: catalogue loads and exports are
+ * scheduled work, and a stream's cost is paid while it is consumed, not when it is created.
+ */
+public class AdmissionControlledLibrary implements Library {
+    private final Library delegate;
+    private final Map<OperationClass, AimdLimiter> limiters;
+
+    public AdmissionControlledLibrary(Library delegate) {
+        this(delegate, defaultLimiters());
+    }
+
+    public AdmissionControlledLibrary(Library delegate, Map<OperationClass, AimdLimiter> limiters) {
+        this.delegate = requireNonNull(delegate, "delegate must be provided");
+        requireNonNull(limiters, "limiters must be provided");
+        for (OperationClass operationClass : OperationClass.values()) {
+            if (!limiters.containsKey(operationClass)) {
+                throw new IllegalArgumentException("missing limiter for " + operationClass);
+            }
+        }
+        this.limiters = new EnumMap<>(limiters);
+    }
+
+    /**
+     * Cheap operations start wide and tolerate a few milliseconds; prefix searches start narrow.
+     */
+    public static Map<OperationClass, AimdLimiter> defaultLimiters() {
+        Map<OperationClass, AimdLimiter> limiters = new EnumMap<>(OperationClass.class);
+        limiters.put(OperationClass.POINT_LOOKUP, new AimdLimiter(64, 4, 1024, Duration.ofMillis(5), 0.9));
+        limiters.put(OperationClass.BORROW, new AimdLimiter(64, 4, 1024, Duration.ofMillis(5), 0.9));
+        limiters.put(OperationClass.PREFIX_SEARCH, new AimdLimiter(8, 1, 64, Duration.ofMillis(50), 0.5));
+        return limiters;
+    }
+
+    public AimdLimiter limiter(OperationClass operationClass) {
+        return limiters.get(requireNonNull(operationClass, "operationClass must be provided"));
+    }
+
+    @Override
+    public void addBook(Book book, int copies) {
+        delegate.addBook(book, copies);
+    }
+
+    @Override
+    public Set<BookAvailability> findByAuthor(String authorQuery) {
+        return admit(OperationClass.PREFIX_SEARCH, () -> delegate.findByAuthor(authorQuery));
+    }
+
+    @Override
+    public Set<BookAvailability> findByTitle(String titleQuery) {
+        return admit(OperationClass.PREFIX_SEARCH, () -> delegate.findByTitle(titleQuery));
+    }
+
+    @Override
+    public Set<BookAvailability> findByQuery(BookQuery query) {
+        return admit(OperationClass.PREFIX_SEARCH, () -> delegate.findByQuery(query));
+    }
+
+    /**
+     * Admitted as a prefix search: suggestions are cheap when answered from precomputed lists, but repositories
+     * fall back to materializing both prefix searches for large limits, long prefixes or indexes still being built,
+     * and this decorator cannot tell which path a call takes.
+     */
+    @Override
+    public List<BookAvailability> suggest(String prefix, int limit) {
+        return admit(OperationClass.PREFIX_SEARCH, () -> delegate.suggest(prefix, limit));
+    }
+
+    /**
+     * Bounded by the limit, but scans the whole catalogue, so it is admitted as a prefix search.
+     */
+    @Override
+    public List<BookAvailability> searchContaining(String query, int limit) {
+        return admit(OperationClass.PREFIX_SEARCH, () -> delegate.searchContaining(query, limit));
+    }
+
+    @Override
+    public Stream<BookAvailability> streamByAuthor(String authorQuery) {
+        return delegate.streamByAuthor(authorQuery);
+    }
+
+    @Override
+    public Stream<BookAvailability> streamByTitle(String titleQuery) {
+        return delegate.streamByTitle(titleQuery);
+    }
+
+    @Override
+    public Stream<BookAvailability> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public BookAvailability findByIsbn(String isbn) {
+        return admit(OperationClass.POINT_LOOKUP, () -> delegate.findByIsbn(isbn));
+    }
+
+    @Override
+    public boolean canBorrow(String isbn) {
+        return admit(OperationClass.POINT_LOOKUP, () -> delegate.canBorrow(isbn));
+    }
+
+    @Override
+    public boolean borrow(String isbn) {
+        return admit(OperationClass.BORROW, () -> delegate.borrow(isbn));
+    }
+
+    @Override
+    public int remainingByIsbn(String isbn) {
+        return admit(OperationClass.POINT_LOOKUP, () -> delegate.remainingByIsbn(isbn));
+    }
+
+    @Override
+    public int remainingByTitle(String title) {
+        return admit(OperationClass.PREFIX_SEARCH, () -> delegate.remainingByTitle(title));
+    }
+
+    @Override
+    public int remainingByAuthor(String author) {
+        return admit(OperationClass.PREFIX_SEARCH, () -> delegate.remainingByAuthor(author));
+    }
+
+    /**
+     * May scan the whole catalogue, so it is admitted as a prefix search.
+     */
+    @Override
+    public int totalBorrowedCount() {
+        return admit(OperationClass.PREFIX_SEARCH, delegate::totalBorrowedCount);
+    }
+
+    private <T> T admit(OperationClass operationClass, Supplier<T> call) {
+        AimdLimiter limiter = limiters.get(operationClass);
+        if (!limiter.tryAcquire()) {
+            throw new OverloadedException(operationClass);
+        }
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+}
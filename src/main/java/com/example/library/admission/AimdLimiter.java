@@ -0,0 +1,109 @@
+package com.example.library.admission;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adaptive concurrency limit using additive-increase/multiplicative-decrease on observed latency.
+ * <p>
+ * A call that completes within the latency threshold while the limiter is at least half utilized grows the limit
+ * by one; a slower call shrinks it by the backoff ratio. The limit backs off at most once per congestion window:
+ * slow completions of calls admitted before the last decrease are ignored, so a burst of N slow calls shrinks the
+ * limit once rather than by ratio^N. Calls beyond the current limit are rejected immediately rather than queued.
+ * Lock-free and thread-safe.
+ */
+public class AimdLimiter {
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(NEVER);
+    private final LongSupplier nanoClock;
+
+    public AimdLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, double backoffRatio) {
+        this(initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio, System::nanoTime);
+    }
+
+    AimdLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, double backoffRatio,
+                LongSupplier nanoClock) {
+        requireNonNull(latencyThreshold, "latencyThreshold must be provided");
+        this.nanoClock = requireNonNull(nanoClock, "nanoClock must be provided");
+        if (minLimit <= 0) {
+            throw new IllegalArgumentException("minLimit must be positive");
+        }
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException("maxLimit must be >= minLimit");
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+        }
+        if (latencyThreshold.isNegative() || latencyThreshold.isZero()) {
+            throw new IllegalArgumentException("latencyThreshold must be positive");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1 (exclusive)");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    /**
+     * Takes a slot if one is free under the current limit. Every successful acquire must be paired with
+     * {@link #release(long)}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees a slot and adapts the limit to the call's latency, measured from its admission.
+     */
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (latencyNanos > latencyThresholdNanos) {
+            long now = nanoClock.getAsLong();
+            long admittedAt = now - latencyNanos;
+            long lastDecrease = lastDecreaseNanos.get();
+            if ((lastDecrease == NEVER || admittedAt - lastDecrease >= 0)
+                    && lastDecreaseNanos.compareAndSet(lastDecrease, now)) {
+                limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+            }
+        } else if (inFlightBefore * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    public int limit() {
+        return limit.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+}
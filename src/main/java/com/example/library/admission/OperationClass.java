@@ -0,0 +1,20 @@
+package com.example.library.admission;
+
+/**
+ * Operation classes that are admitted independently, so expensive work cannot starve cheap work.
+ */
+public enum OperationClass {
+    /**
+     * Exact-match reads by ISBN.
+     */
+    POINT_LOOKUP,
+    /**
+     * Borrow attempts.
+     */
+    BORROW,
+    /**
+     * Prefix, substring and boolean searches by author or title, suggestions, and aggregates whose cost grows with
+     * the catalogue, such as remaining copies by title and total borrowed copies.
+     */
+    PREFIX_SEARCH
+}
@@ -0,0 +1,20 @@
+package com.example.library.admission;
+
+/**
+ * Thrown when a call is rejected by admission control instead of being queued.
+ * Callers should treat it as a retryable, load-related failure.
+ */
+public class OverloadedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final OperationClass operationClass;
+
+    public OverloadedException(OperationClass operationClass) {
+        super("Rejected by admission control: " + operationClass);
+        this.operationClass = operationClass;
+    }
+
+    public OperationClass operationClass() {
+        return operationClass;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.library.analytics;
+
+import com.example.library.repository.BorrowListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Sliding-window borrow frequencies in fixed memory.
+ * <p>
+ * The window is a ring of buckets; each bucket holds a {@link CountMinSketch} for frequency estimates and a bounded
+ * set of heavy-hitter candidates. A borrow increments the current bucket's sketch without locking; the candidate
+ * set is only locked when the new estimate beats the weakest candidate, which for long-tail ISBNs is rare.
+ * Queries cover the current bucket plus the previous {@code buckets - 1}, so the window slides in bucket-sized steps.
+ * A bucket belongs to exactly one epoch: when its slot in the ring is reused, a fresh bucket is swapped in rather
+ * than the old one cleared, so borrows racing with the rotation never lose counts or land in another epoch.
+ * <p>
+ * Estimates never undercount. Over a window with {@code N} borrows they overcount by at most
+ * {@code e / sketchWidth * N} with high probability. {@link #topBorrowed(int)} ranks the union of the live buckets'
+ * candidates by those estimates.
+ */
+public class BorrowAnalytics implements BorrowListener {
+    static final Duration DEFAULT_WINDOW = Duration.ofHours(1);
+    static final int DEFAULT_BUCKETS = 12;
+    static final int DEFAULT_SKETCH_WIDTH = 4096;
+    static final int DEFAULT_SKETCH_DEPTH = 4;
+    static final int DEFAULT_CANDIDATES = 512;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final long bucketNanos;
+    private final int sketchWidth;
+    private final int sketchDepth;
+    private final int candidatesPerBucket;
+    private final LongSupplier nanoClock;
+
+    public BorrowAnalytics() {
+        this(DEFAULT_WINDOW, DEFAULT_BUCKETS, DEFAULT_SKETCH_WIDTH, DEFAULT_SKETCH_DEPTH, DEFAULT_CANDIDATES,
+                System::nanoTime);
+    }
+
+    public BorrowAnalytics(Duration window, int buckets, int sketchWidth, int sketchDepth, int candidatesPerBucket,
+                           LongSupplier nanoClock) {
+        requireNonNull(window, "window must be provided");
+        this.nanoClock = requireNonNull(nanoClock, "nanoClock must be provided");
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("buckets must be positive");
+        }
+        if (candidatesPerBucket <= 0) {
+            throw new IllegalArgumentException("candidatesPerBucket must be positive");
+        }
+        this.bucketNanos = window.toNanos() / buckets;
+        if (bucketNanos <= 0) {
+            throw new IllegalArgumentException("window must be at least one nanosecond per bucket");
+        }
+        this.buckets = new AtomicReferenceArray<>(buckets);
+        this.sketchWidth = sketchWidth;
+        this.sketchDepth = sketchDepth;
+        this.candidatesPerBucket = candidatesPerBucket;
+        bucketFor(currentEpoch());
+    }
+
+    @Override
+    public void onBorrow(String isbn) {
+        requireNonNull(isbn, "isbn must be provided");
+        Bucket bucket = bucketFor(currentEpoch());
+        if (bucket == null) {
+            return;
+        }
+        long estimate = bucket.sketch.add(isbn);
+        if (estimate > bucket.admissionThreshold) {
+            bucket.offer(isbn, estimate);
+        }
+    }
+
+    /**
+     * Estimated borrows of the ISBN within the window.
+     */
+    public long estimateBorrows(String isbn) {
+        requireNonNull(isbn, "isbn must be provided");
+        long total = 0;
+        for (Bucket bucket : liveBuckets(currentEpoch())) {
+            total += bucket.sketch.estimate(isbn);
+        }
+        return total;
+    }
+
+    /**
+     * Up to {@code limit} most borrowed ISBNs within the window, most borrowed first, ties broken by ISBN.
+     */
+    public List<IsbnCount> topBorrowed(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        List<Bucket> live = liveBuckets(currentEpoch());
+        Set<String> candidates = new HashSet<>();
+        for (Bucket bucket : live) {
+            candidates.addAll(bucket.candidates());
+        }
+        List<IsbnCount> counts = new ArrayList<>(candidates.size());
+        for (String isbn : candidates) {
+            long total = 0;
+            for (Bucket bucket : live) {
+                total += bucket.sketch.estimate(isbn);
+            }
+            counts.add(new IsbnCount(isbn, total));
+        }
+        counts.sort(Comparator.comparingLong(IsbnCount::estimatedBorrows).reversed()
+                .thenComparing(IsbnCount::isbn));
+        return counts.size() <= limit ? counts : List.copyOf(counts.subList(0, limit));
+    }
+
+    private long currentEpoch() {
+        return Math.floorDiv(nanoClock.getAsLong(), bucketNanos);
+    }
+
+    /**
+     * The epoch's bucket, swapping a fresh one into its ring slot if the slot still holds an older epoch, or
+     * {@code null} if the slot has already moved on to a newer epoch (the caller's epoch is outside the window).
+     */
+    private Bucket bucketFor(long epoch) {
+        int slot = (int) Math.floorMod(epoch, (long) buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.epoch >= epoch) {
+                return bucket.epoch == epoch ? bucket : null;
+            }
+            Bucket fresh = new Bucket(epoch, new CountMinSketch(sketchWidth, sketchDepth), candidatesPerBucket);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private List<Bucket> liveBuckets(long currentEpoch) {
+        List<Bucket> live = new ArrayList<>(buckets.length());
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.isLive(currentEpoch, buckets.length())) {
+                live.add(bucket);
+            }
+        }
+        return live;
+    }
+
+    public record IsbnCount(String isbn, long estimatedBorrows) {
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final CountMinSketch sketch;
+        private final int capacity;
+        /**
+         * Candidate ISBN to its highest estimate offered.
+         */
+        private final Map<String, Long> candidates;
+        /**
+         * The same candidates, weakest first, so the weakest is found and evicted in {@code O(log capacity)}.
+         */
+        private final TreeSet<IsbnCount> byEstimate = new TreeSet<>(
+                Comparator.comparingLong(IsbnCount::estimatedBorrows).thenComparing(IsbnCount::isbn));
+        /**
+         * Zero until the candidate set is full, then the weakest candidate's estimate.
+         */
+        private volatile long admissionThreshold;
+
+        private Bucket(long epoch, CountMinSketch sketch, int capacity) {
+            this.epoch = epoch;
+            this.sketch = sketch;
+            this.capacity = capacity;
+            this.candidates = new HashMap<>(capacity * 2);
+        }
+
+        private boolean isLive(long currentEpoch, int bucketCount) {
+            long age = currentEpoch - epoch;
+            return age >= 0 && age < bucketCount;
+        }
+
+        /**
+         * Estimates offered out of order by racing borrows keep the higher one.
+         */
+        private synchronized void offer(String isbn, long estimate) {
+            Long previous = candidates.get(isbn);
+            if (previous == null) {
+                if (candidates.size() >= capacity) {
+                    if (estimate <= admissionThreshold) {
+                        return;
+                    }
+                    candidates.remove(byEstimate.pollFirst().isbn());
+                }
+            } else {
+                if (estimate <= previous) {
+                    return;
+                }
+                byEstimate.remove(new IsbnCount(isbn, previous));
+            }
+            candidates.put(isbn, estimate);
+            byEstimate.add(new IsbnCount(isbn, estimate));
+            if (candidates.size() >= capacity) {
+                admissionThreshold = byEstimate.first().estimatedBorrows();
+            }
+        }
+
+        private synchronized Set<String> candidates() {
+            return new HashSet<>(candidates.keySet());
+        }
+    }
+}
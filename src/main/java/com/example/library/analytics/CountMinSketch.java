@@ -0,0 +1,80 @@
+package com.example.library.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Count-Min sketch. Estimates never undercount; with {@code width} counters per row they overcount by at
+ * most {@code e / width} of the total count with probability {@code 1 - e^-depth}.
+ * <p>
+ * That bound needs the rows to hash independently, so each key is hashed to 64 bits once and every row mixes that
+ * hash with its own seed. Keys sharing a {@link String#hashCode()} therefore still land apart.
+ */
+final class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final long[] seeds;
+    private final AtomicLongArray counters;
+
+    CountMinSketch(int width, int depth) {
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a positive power of two");
+        }
+        if (depth <= 0) {
+            throw new IllegalArgumentException("depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.mask = width - 1;
+        this.seeds = new long[depth];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = mix((row + 1) * 0x9E3779B97F4A7C15L);
+        }
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    /**
+     * Increments the key and returns its new estimate.
+     */
+    long add(String key) {
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    long estimate(String key) {
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    private int index(long hash, int row) {
+        return row * width + (int) (mix(hash ^ seeds[row]) & mask);
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's chars.
+     */
+    private static long hash(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return h;
+    }
+
+    /**
+     * MurmurHash3 finalizer: every input bit affects every output bit.
+     */
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.library.app;
+
+import com.example.library.domain.Book;
+import com.example.library.loadtest.SyntheticCatalogue;
+import com.example.library.repository.SubstringIndex;
+
+import java.util.List;
+
+/**
+ * Measures "contains" scan throughput of {@link SubstringIndex} with the vector and the scalar scanner over a
+ * synthetic catalogue and prints it in GB/s. Run with {@code --add-modules jdk.incubator.vector} to measure the
+ * vector scanner; without it both rows use the scalar one.
+ * <p>
+ * Options are {@code --books=N} (default 1000000) and {@code --iterations=N} (default 20) queries per needle.
+ */
+public class ContainsBenchmark {
+    private static final List<String> NEEDLES = List.of("war", "the", "of silence", "zq", "xanwen");
+
+    public static void main(String[] args) {
+        int books = 1_000_000;
+        int iterations = 20;
+        for (String arg : args) {
+            if (arg.startsWith("--books=")) {
+                books = Integer.parseInt(arg.substring("--books=".length()));
+            } else if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            } else {
+                throw new IllegalArgumentException("unknown option: " + arg);
+            }
+        }
+
+        SyntheticCatalogue catalogue = new SyntheticCatalogue(books, 42);
+        for (SubstringIndex index : List.of(SubstringIndex.vectorized(), SubstringIndex.scalar())) {
+            for (int i = 0; i < catalogue.size(); i++) {
+                Book book = catalogue.book(i);
+                index.add(book.isbn(), book.title(), book.author());
+            }
+            report(index, iterations);
+        }
+    }
+
+    private static void report(SubstringIndex index, int iterations) {
+        for (String needle : NEEDLES) {
+            index.isbnsContaining(needle);
+        }
+        System.out.printf("%s scanner, %.1f MB packed, %d parallelism%n", index.scannerName(),
+                index.sizeBytes() / 1e6, Runtime.getRuntime().availableProcessors());
+        for (String needle : NEEDLES) {
+            int matches = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                matches = index.isbnsContaining(needle).size();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("  %-12s %8d matches %8.3f ms/query %7.2f GB/s%n", '"' + needle + '"', matches,
+                    elapsed / 1e6 / iterations, (double) index.sizeBytes() * iterations / elapsed);
+        }
+    }
+}
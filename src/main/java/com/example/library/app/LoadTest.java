@@ -0,0 +1,109 @@
+package com.example.library.app;
+
+import com.example.library.admission.AdmissionControlledLibrary;
+import com.example.library.loadtest.LoadGenerator;
+import com.example.library.loadtest.LoadReport;
+import com.example.library.loadtest.SyntheticCatalogue;
+import com.example.library.loadtest.WorkloadConfig;
+import com.example.library.repository.BorrowListener;
+import com.example.library.repository.InMemoryInventoryRepository;
+import com.example.library.repository.IndexBuildMode;
+import com.example.library.repository.InventoryRepository;
+import com.example.library.repository.MultiBranchInventory;
+import com.example.library.repository.SecondaryIndex;
+import com.example.library.repository.TieredInventoryRepository;
+import com.example.library.service.Library;
+import com.example.library.service.LibraryService;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Load-test entry point. Builds a synthetic catalogue, drives the chosen target with an open-loop workload and
+ * exits with status 1 if any SLO is violated.
+ * <p>
+ * Options are {@code --key=value}: {@code --target=memory|admission|branch|tiered}, {@code --copies=N},
+ * {@code --index=eager|deferred}, {@code --secondary=suggestions,...|none} and {@code --heap-budget=BYTES} select the
+ * system under test; everything else is read by {@link WorkloadConfig#fromArgs(String[])}. Only the suggestion
+ * index is enabled by default, since it is the only secondary index the workload queries. With deferred indexes the
+ * run starts as soon as the primary map is loaded and the indexes are built in the background. The tiered target
+ * spills to the temp directory.
+ */
+public class LoadTest {
+    public static void main(String[] args) {
+        String target = "memory";
+        int copies = 20;
+        IndexBuildMode indexBuildMode = IndexBuildMode.EAGER;
+        Set<SecondaryIndex> secondaryIndexes = EnumSet.of(SecondaryIndex.SUGGESTIONS);
+        long heapBudget = 64L << 20;
+        List<String> workloadArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--target=")) {
+                target = arg.substring("--target=".length());
+            } else if (arg.startsWith("--copies=")) {
+                copies = Integer.parseInt(arg.substring("--copies=".length()));
+            } else if (arg.startsWith("--index=")) {
+                indexBuildMode = IndexBuildMode.valueOf(arg.substring("--index=".length()).toUpperCase());
+            } else if (arg.startsWith("--secondary=")) {
+                secondaryIndexes = parseSecondaryIndexes(arg.substring("--secondary=".length()));
+            } else if (arg.startsWith("--heap-budget=")) {
+                heapBudget = Long.parseLong(arg.substring("--heap-budget=".length()));
+            } else {
+                workloadArgs.add(arg);
+            }
+        }
+        WorkloadConfig config = WorkloadConfig.fromArgs(workloadArgs.toArray(String[]::new));
+
+        SyntheticCatalogue catalogue = new SyntheticCatalogue(config.books(), config.seed());
+        InventoryRepository repository = switch (target) {
+            case "memory", "admission" -> new InMemoryInventoryRepository(BorrowListener.NONE, indexBuildMode,
+                    secondaryIndexes);
+            case "branch" -> new MultiBranchInventory(List.of("main")).branch("main");
+            case "tiered" -> new TieredInventoryRepository(Path.of(System.getProperty("java.io.tmpdir")), heapBudget);
+            default -> throw new IllegalArgumentException("unknown target: " + target);
+        };
+        long loadStart = System.nanoTime();
+        repository.addBooks(catalogue.entries(copies));
+        System.out.printf("loaded %d books into %s in %.1fms%n", catalogue.size(), target,
+                (System.nanoTime() - loadStart) / 1e6);
+        if (repository instanceof InMemoryInventoryRepository memory && !memory.indexesReady()) {
+            memory.buildIndexesAsync(ForkJoinPool.commonPool())
+                    .whenComplete((ignored, failure) -> {
+                        if (failure != null) {
+                            System.err.println("index build failed, prefix queries keep scanning: " + failure);
+                        } else {
+                            System.out.printf("indexes ready after %.1fms%n", (System.nanoTime() - loadStart) / 1e6);
+                        }
+                    });
+        }
+
+        Library library = new LibraryService(repository);
+        if (target.equals("admission")) {
+            library = new AdmissionControlledLibrary(library);
+        }
+
+        LoadReport report = new LoadGenerator(library, catalogue, config).run();
+        System.out.print(report.format());
+        if (repository instanceof TieredInventoryRepository tiered) {
+            System.out.printf("tiered: %.1f of %.1f MB hot values, %d segments, %d disk reads%n",
+                    tiered.hotBytes() / 1e6, heapBudget / 1e6, tiered.segmentCount(), tiered.diskReads());
+            tiered.close();
+        }
+        System.exit(report.passed() ? 0 : 1);
+    }
+
+    private static Set<SecondaryIndex> parseSecondaryIndexes(String value) {
+        Set<SecondaryIndex> indexes = EnumSet.noneOf(SecondaryIndex.class);
+        if (value.equals("none")) {
+            return indexes;
+        }
+        for (String name : value.split(",")) {
+            indexes.add(SecondaryIndex.valueOf(name.trim().toUpperCase()));
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.library.domain;
+
+import com.example.library.util.LibraryUtils;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Composable boolean query over books: author prefix, title prefix, book type and availability, combined with
+ * AND, OR and NOT. Prefixes are matched case-insensitively, like the prefix searches; a blank prefix matches
+ * nothing.
+ * <p>
+ * For example {@code BookQuery.author("tol").and(BookQuery.title("war")).and(BookQuery.available())}.
+ */
+public sealed interface BookQuery {
+
+    static BookQuery author(String prefix) {
+        return new AuthorPrefix(prefix);
+    }
+
+    static BookQuery title(String prefix) {
+        return new TitlePrefix(prefix);
+    }
+
+    static BookQuery type(BookType type) {
+        return new OfType(type);
+    }
+
+    /**
+     * At least one copy not borrowed.
+     */
+    static BookQuery available() {
+        return new Available();
+    }
+
+    static BookQuery allOf(BookQuery... clauses) {
+        return new And(List.of(clauses));
+    }
+
+    static BookQuery anyOf(BookQuery... clauses) {
+        return new Or(List.of(clauses));
+    }
+
+    static BookQuery not(BookQuery clause) {
+        return new Not(clause);
+    }
+
+    default BookQuery and(BookQuery other) {
+        return allOf(this, other);
+    }
+
+    default BookQuery or(BookQuery other) {
+        return anyOf(this, other);
+    }
+
+    /**
+     * Evaluates the query against one book and its currently available copies.
+     */
+    boolean matches(Book book, int availableCopies);
+
+    record AuthorPrefix(String prefix) implements BookQuery {
+        public AuthorPrefix {
+            prefix = LibraryUtils.normalizeLower(Objects.requireNonNull(prefix, "prefix must be provided"));
+        }
+
+        @Override
+        public boolean matches(Book book, int availableCopies) {
+            return !prefix.isEmpty() && LibraryUtils.normalizeLower(book.author()).startsWith(prefix);
+        }
+    }
+
+    record TitlePrefix(String prefix) implements BookQuery {
+        public TitlePrefix {
+            prefix = LibraryUtils.normalizeLower(Objects.requireNonNull(prefix, "prefix must be provided"));
+        }
+
+        @Override
+        public boolean matches(Book book, int availableCopies) {
+            return !prefix.isEmpty() && LibraryUtils.normalizeLower(book.title()).startsWith(prefix);
+        }
+    }
+
+    record OfType(BookType type) implements BookQuery {
+        public OfType {
+            Objects.requireNonNull(type, "type must be provided");
+        }
+
+        @Override
+        public boolean matches(Book book, int availableCopies) {
+            return book.type() == type;
+        }
+    }
+
+    record Available() implements BookQuery {
+        @Override
+        public boolean matches(Book book, int availableCopies) {
+            return availableCopies > 0;
+        }
+    }
+
+    record And(List<BookQuery> clauses) implements BookQuery {
+        public And {
+            clauses = List.copyOf(clauses);
+            if (clauses.isEmpty()) {
+                throw new IllegalArgumentException("clauses must not be empty");
+            }
+        }
+
+        @Override
+        public boolean matches(Book book, int availableCopies) {
+            return clauses.stream().allMatch(clause -> clause.matches(book, availableCopies));
+        }
+    }
+
+    record Or(List<BookQuery> clauses) implements BookQuery {
+        public Or {
+            clauses = List.copyOf(clauses);
+            if (clauses.isEmpty()) {
+                throw new IllegalArgumentException("clauses must not be empty");
+            }
+        }
+
+        @Override
+        public boolean matches(Book book, int availableCopies) {
+            return clauses.stream().anyMatch(clause -> clause.matches(book, availableCopies));
+        }
+    }
+
+    record Not(BookQuery clause) implements BookQuery {
+        public Not {
+            Objects.requireNonNull(clause, "clause must be provided");
+        }
+
+        @Override
+        public boolean matches(Book book, int availableCopies) {
+            return !clause.matches(book, availableCopies);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.library.domain;
+
+import java.util.Objects;
+
+/**
+ * A book together with the number of copies to add, as read from a catalogue feed.
+ */
+public record CatalogueEntry(Book book, int copies) {
+    public CatalogueEntry {
+        Objects.requireNonNull(book, "book must be provided");
+        if (copies <= 0) {
+            throw new IllegalArgumentException("copies must be positive");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.library.domain;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Availability of a book across all branches: network-wide totals plus available copies per stocking branch.
+ */
+public record NetworkAvailability(Book book, int totalCopies, int availableCopies,
+                                  Map<String, Integer> availableByBranch) {
+    public NetworkAvailability {
+        Objects.requireNonNull(book, "book must be provided");
+        availableByBranch = Map.copyOf(availableByBranch);
+    }
+}
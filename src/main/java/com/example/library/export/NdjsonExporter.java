@@ -0,0 +1,129 @@
+package com.example.library.export;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookAvailability;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes availabilities as newline-delimited JSON, one object per line:
+ * <pre>{"isbn":"...","title":"...","author":"...","type":"NORMAL","availableCopies":3}</pre>
+ * Memory use is bounded by the output buffer and the longest single line, regardless of how many rows are written.
+ * Not thread-safe; use one exporter per export.
+ */
+public class NdjsonExporter {
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder(256);
+
+    public NdjsonExporter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public NdjsonExporter(int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("bufferSize must be at least 16");
+        }
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Consumes and closes the stream, writing every element to the channel. The channel is left open.
+     *
+     * @return number of rows written
+     */
+    public long export(Stream<BookAvailability> availabilities, WritableByteChannel channel) throws IOException {
+        requireNonNull(availabilities, "availabilities must be provided");
+        requireNonNull(channel, "channel must be provided");
+        buffer.clear();
+        long rows = 0;
+        try (availabilities) {
+            Iterator<BookAvailability> iterator = availabilities.iterator();
+            while (iterator.hasNext()) {
+                writeLine(iterator.next(), channel);
+                rows++;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        drain(channel);
+        return rows;
+    }
+
+    private void writeLine(BookAvailability availability, WritableByteChannel channel) throws IOException {
+        Book book = availability.book();
+        line.setLength(0);
+        line.append("{\"isbn\":");
+        appendString(book.isbn());
+        line.append(",\"title\":");
+        appendString(book.title());
+        line.append(",\"author\":");
+        appendString(book.author());
+        line.append(",\"type\":\"").append(book.type().name());
+        line.append("\",\"availableCopies\":").append(availability.availableCopies());
+        line.append("}\n");
+
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                drain(channel);
+            } else if (result.isError()) {
+                try {
+                    result.throwException();
+                } catch (CharacterCodingException e) {
+                    throw new IOException("cannot encode row for isbn " + book.isbn(), e);
+                }
+            }
+        } while (!result.isUnderflow());
+        while (encoder.flush(buffer).isOverflow()) {
+            drain(channel);
+        }
+    }
+
+    private void appendString(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private void drain(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.library.export;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adapts a lazily evaluated {@link Stream} to a {@link Flow.Publisher} with demand-driven backpressure.
+ * <p>
+ * Every subscriber gets its own stream from the supplier, opened on the first request. Elements are pulled from
+ * the stream only as the subscriber requests them, so a slow subscriber never causes buffering. Signals are
+ * delivered on the given executor, one at a time per subscription. The stream is closed on completion, error
+ * or cancellation.
+ */
+public final class StreamPublisher<T> implements Flow.Publisher<T> {
+    private final Supplier<? extends Stream<? extends T>> source;
+    private final Executor executor;
+
+    public StreamPublisher(Supplier<? extends Stream<? extends T>> source) {
+        this(source, ForkJoinPool.commonPool());
+    }
+
+    public StreamPublisher(Supplier<? extends Stream<? extends T>> source, Executor executor) {
+        this.source = requireNonNull(source, "source must be provided");
+        this.executor = requireNonNull(executor, "executor must be provided");
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        requireNonNull(subscriber, "subscriber must be provided");
+        subscriber.onSubscribe(new StreamSubscription(subscriber));
+    }
+
+    private final class StreamSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        /**
+         * Work-in-progress counter; only the thread that moves it off zero drains.
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private Stream<? extends T> stream;
+        private Iterator<? extends T> iterator;
+
+        private StreamSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("request must be positive: " + n);
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Returns without decrementing {@link #wip} once terminated, so no further drains are scheduled.
+         */
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                if (cancelled) {
+                    close();
+                    return;
+                }
+                if (invalidRequest != null) {
+                    terminate(invalidRequest);
+                    return;
+                }
+                try {
+                    if (iterator == null) {
+                        stream = source.get();
+                        iterator = stream.iterator();
+                    }
+                    while (demand.get() > 0 && !cancelled) {
+                        if (!iterator.hasNext()) {
+                            close();
+                            subscriber.onComplete();
+                            return;
+                        }
+                        T next = iterator.next();
+                        if (demand.get() != Long.MAX_VALUE) {
+                            demand.decrementAndGet();
+                        }
+                        subscriber.onNext(next);
+                    }
+                } catch (RuntimeException e) {
+                    terminate(e);
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void terminate(Throwable error) {
+            cancelled = true;
+            close();
+            subscriber.onError(error);
+        }
+
+        private void close() {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.library.importer;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookType;
+import com.example.library.domain.CatalogueEntry;
+import com.example.library.importer.ImportReport.RejectedRow;
+import com.example.library.repository.InventoryRepository;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bulk importer for CSV catalogue feeds with the columns {@code isbn,title,author,type,copies}.
+ * <p>
+ * The file is memory-mapped and split into chunks on line boundaries. Chunks are parsed in parallel, then each
+ * chunk waits for its predecessor and feeds the repository in batches through
+ * {@link InventoryRepository#addBooks(List, java.util.function.ObjIntConsumer)}, so rows reach the repository in
+ * file order (the first of two conflicting rows for an ISBN wins) and the repository lock is taken once per batch
+ * rather than once per row. Every rejected row is reported at its own byte offset. Fields are parsed straight from the mapped bytes: {@code type}
+ * and {@code copies} never become Strings, and text fields are only decoded once the row has passed those checks.
+ * <p>
+ * Fields may be wrapped in double quotes ({@code ""} escapes a quote); quoted fields must not span lines.
+ * Blank lines are ignored.
+ */
+public class CatalogueImporter {
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    static final int DEFAULT_BATCH_SIZE = 1024;
+    private static final int MAX_REJECTED_SAMPLES = 100;
+    private static final int FIELD_COUNT = 5;
+    private static final byte[] NORMAL = "normal".getBytes(US_ASCII);
+    private static final byte[] REFERENCE = "reference".getBytes(US_ASCII);
+
+    private final InventoryRepository repository;
+    private final int chunkSize;
+    private final int batchSize;
+    private final int parallelism;
+
+    public CatalogueImporter(InventoryRepository repository) {
+        this(repository, DEFAULT_CHUNK_SIZE, DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    public CatalogueImporter(InventoryRepository repository, int chunkSize, int batchSize, int parallelism) {
+        this.repository = requireNonNull(repository, "repository must be provided");
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Imports every row of the file into the repository.
+     *
+     * @param skipHeader whether the first line is a header row
+     */
+    public ImportReport importCsv(Path file, boolean skipHeader) throws IOException {
+        requireNonNull(file, "file must be provided");
+        long startNanos = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Chunk> chunks = split(channel);
+            if (chunks.isEmpty()) {
+                return new ImportReport(0, 0, List.of(), Duration.ofNanos(System.nanoTime() - startNanos));
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()));
+            try {
+                List<Future<ChunkResult>> futures = new ArrayList<>(chunks.size());
+                CountDownLatch previous = new CountDownLatch(0);
+                for (Chunk chunk : chunks) {
+                    boolean skipFirstLine = skipHeader && chunk.start() == 0;
+                    CountDownLatch predecessor = previous;
+                    CountDownLatch applied = new CountDownLatch(1);
+                    futures.add(executor.submit(
+                            () -> new ChunkImport(channel, chunk).run(skipFirstLine, predecessor, applied)));
+                    previous = applied;
+                }
+                long accepted = 0;
+                long rejected = 0;
+                List<RejectedRow> samples = new ArrayList<>();
+                for (Future<ChunkResult> future : futures) {
+                    ChunkResult result = await(future);
+                    accepted += result.accepted();
+                    rejected += result.rejected();
+                    for (RejectedRow row : result.samples()) {
+                        if (samples.size() < MAX_REJECTED_SAMPLES) {
+                            samples.add(row);
+                        }
+                    }
+                }
+                return new ImportReport(accepted, rejected, samples, Duration.ofNanos(System.nanoTime() - startNanos));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private List<Chunk> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = nextLineStart(channel, Math.min(start + chunkSize, size), size, probe);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("line starting near offset " + start + " is too long");
+            }
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe)
+            throws IOException {
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static ChunkResult await(Future<ChunkResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("catalogue import interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("catalogue import failed", cause);
+        }
+    }
+
+    private record Chunk(long start, long end) {
+    }
+
+    private record ChunkResult(long accepted, long rejected, List<RejectedRow> samples) {
+    }
+
+    /**
+     * Parses one mapped chunk. Not thread-safe; each chunk gets its own instance.
+     */
+    private final class ChunkImport {
+        private final long baseOffset;
+        private final MappedByteBuffer buffer;
+        private final int[] starts = new int[FIELD_COUNT];
+        private final int[] ends = new int[FIELD_COUNT];
+        private final boolean[] quoted = new boolean[FIELD_COUNT];
+        private final List<CatalogueEntry> entries = new ArrayList<>();
+        private final List<RejectedRow> samples = new ArrayList<>();
+        private byte[] scratch = new byte[256];
+        private long[] offsets = new long[64];
+        private long accepted;
+        private long rejected;
+        /**
+         * Samples taken in the current phase. Each phase rejects in offset order, so keeping the first
+         * {@code MAX_REJECTED_SAMPLES} of each and trimming after sorting keeps the chunk's first ones.
+         */
+        private int phaseSamples;
+
+        private ChunkImport(FileChannel channel, Chunk chunk) throws IOException {
+            this.baseOffset = chunk.start();
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+        }
+
+        /**
+         * Parses the chunk, then waits for {@code predecessor} before applying its rows so that chunks reach the
+         * repository in file order. Tasks are submitted in file order to a FIFO pool and only wait on earlier
+         * chunks, so waiting cannot deadlock. {@code applied} is released even on failure.
+         */
+        private ChunkResult run(boolean skipFirstLine, CountDownLatch predecessor, CountDownLatch applied)
+                throws InterruptedException {
+            try {
+                parse(skipFirstLine);
+                predecessor.await();
+                phaseSamples = 0;
+                apply();
+                samples.sort(Comparator.comparingLong(RejectedRow::offset));
+                if (samples.size() > MAX_REJECTED_SAMPLES) {
+                    samples.subList(MAX_REJECTED_SAMPLES, samples.size()).clear();
+                }
+                return new ChunkResult(accepted, rejected, samples);
+            } finally {
+                applied.countDown();
+            }
+        }
+
+        private void parse(boolean skipFirstLine) {
+            int limit = buffer.limit();
+            int position = skipFirstLine ? lineEnd(0, limit) + 1 : 0;
+            while (position < limit) {
+                int end = lineEnd(position, limit);
+                int contentEnd = end > position && buffer.get(end - 1) == '\r' ? end - 1 : end;
+                if (contentEnd > position) {
+                    String reason = parseLine(position, contentEnd);
+                    if (reason != null) {
+                        reject(baseOffset + position, reason);
+                    }
+                }
+                position = end + 1;
+            }
+        }
+
+        private int lineEnd(int from, int limit) {
+            for (int i = from; i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return limit;
+        }
+
+        /**
+         * @return rejection reason, or {@code null} if the row was queued for the repository
+         */
+        private String parseLine(int from, int to) {
+            int field = 0;
+            int position = from;
+            while (true) {
+                if (field == FIELD_COUNT) {
+                    return "expected " + FIELD_COUNT + " fields";
+                }
+                if (position < to && buffer.get(position) == '"') {
+                    int closing = closingQuote(position + 1, to);
+                    if (closing < 0) {
+                        return "unterminated quoted field";
+                    }
+                    starts[field] = position + 1;
+                    ends[field] = closing;
+                    quoted[field] = true;
+                    position = closing + 1;
+                    if (position < to && buffer.get(position) != ',') {
+                        return "unexpected character after quoted field";
+                    }
+                } else {
+                    int end = position;
+                    while (end < to && buffer.get(end) != ',') {
+                        end++;
+                    }
+                    starts[field] = position;
+                    ends[field] = end;
+                    quoted[field] = false;
+                    position = end;
+                }
+                field++;
+                if (position >= to) {
+                    break;
+                }
+                position++;
+            }
+            if (field != FIELD_COUNT) {
+                return "expected " + FIELD_COUNT + " fields";
+            }
+
+            BookType type = parseType(starts[3], ends[3]);
+            if (type == null) {
+                return "unknown book type";
+            }
+            int copies = parseCopies(starts[4], ends[4]);
+            if (copies <= 0) {
+                return "copies must be a positive integer";
+            }
+            if (isBlank(starts[0], ends[0])) {
+                return "isbn must be provided";
+            }
+
+            try {
+                Book book = new Book(decode(0), decode(1), decode(2), type);
+                add(new CatalogueEntry(book, copies), from);
+            } catch (NullPointerException | IllegalArgumentException e) {
+                return e.getMessage();
+            }
+            return null;
+        }
+
+        private int closingQuote(int from, int to) {
+            int position = from;
+            while (position < to) {
+                if (buffer.get(position) == '"') {
+                    if (position + 1 < to && buffer.get(position + 1) == '"') {
+                        position += 2;
+                        continue;
+                    }
+                    return position;
+                }
+                position++;
+            }
+            return -1;
+        }
+
+        private BookType parseType(int from, int to) {
+            while (from < to && isSpace(buffer.get(from))) {
+                from++;
+            }
+            while (to > from && isSpace(buffer.get(to - 1))) {
+                to--;
+            }
+            if (equalsIgnoreCase(from, to, NORMAL)) {
+                return BookType.NORMAL;
+            }
+            if (equalsIgnoreCase(from, to, REFERENCE)) {
+                return BookType.REFERENCE;
+            }
+            return null;
+        }
+
+        private boolean equalsIgnoreCase(int from, int to, byte[] lowerAscii) {
+            if (to - from != lowerAscii.length) {
+                return false;
+            }
+            for (int i = 0; i < lowerAscii.length; i++) {
+                byte b = buffer.get(from + i);
+                if (b >= 'A' && b <= 'Z') {
+                    b += 'a' - 'A';
+                }
+                if (b != lowerAscii[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return parsed value, or {@code -1} if the field is not a non-negative int
+         */
+        private int parseCopies(int from, int to) {
+            while (from < to && isSpace(buffer.get(from))) {
+                from++;
+            }
+            while (to > from && isSpace(buffer.get(to - 1))) {
+                to--;
+            }
+            if (from == to) {
+                return -1;
+            }
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') {
+                    return -1;
+                }
+                value = value * 10 + (b - '0');
+                if (value > Integer.MAX_VALUE) {
+                    return -1;
+                }
+            }
+            return (int) value;
+        }
+
+        private boolean isBlank(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (!isSpace(buffer.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String decode(int field) {
+            int from = starts[field];
+            int to = ends[field];
+            int length = to - from;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            if (!quoted[field]) {
+                buffer.get(from, scratch, 0, length);
+                return new String(scratch, 0, length, UTF_8);
+            }
+            int written = 0;
+            for (int i = from; i < to; i++) {
+                byte b = buffer.get(i);
+                scratch[written++] = b;
+                if (b == '"') {
+                    i++;
+                }
+            }
+            return new String(scratch, 0, written, UTF_8);
+        }
+
+        private void add(CatalogueEntry entry, int lineStart) {
+            if (entries.size() == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[entries.size()] = baseOffset + lineStart;
+            entries.add(entry);
+        }
+
+        private void apply() {
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                int batchStart = from;
+                List<CatalogueEntry> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+                accepted += repository.addBooks(batch,
+                        (reason, index) -> reject(offsets[batchStart + index], reason));
+            }
+            entries.clear();
+        }
+
+        private void reject(long offset, String reason) {
+            rejected++;
+            if (phaseSamples < MAX_REJECTED_SAMPLES) {
+                samples.add(new RejectedRow(offset, reason));
+                phaseSamples++;
+            }
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.library.importer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Outcome of a catalogue import. Only the first few rejected rows are kept as samples.
+ */
+public record ImportReport(long acceptedRows, long rejectedRows, List<RejectedRow> rejectedSamples, Duration elapsed) {
+    public ImportReport {
+        Objects.requireNonNull(rejectedSamples, "rejectedSamples must be provided");
+        Objects.requireNonNull(elapsed, "elapsed must be provided");
+        rejectedSamples = List.copyOf(rejectedSamples);
+    }
+
+    public long totalRows() {
+        return acceptedRows + rejectedRows;
+    }
+
+    public double rowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : totalRows() * 1_000_000_000d / nanos;
+    }
+
+    /**
+     * A rejected row, identified by the byte offset of the line start within the file.
+     */
+    public record RejectedRow(long offset, String reason) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.library.loadtest;
+
+import com.example.library.admission.OverloadedException;
+import com.example.library.domain.Book;
+import com.example.library.service.Library;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Open-loop load generator. A single dispatcher computes each request's intended start time from the arrival
+ * process and hands the request to its own virtual thread; it never waits for responses, so a slow system
+ * cannot slow the offered load down. Latency is recorded from the intended start, which corrects for
+ * coordinated omission.
+ */
+public class LoadGenerator {
+    private static final int SUGGEST_LIMIT = 10;
+
+    private final Library library;
+    private final SyntheticCatalogue catalogue;
+    private final WorkloadConfig config;
+    private final ZipfSampler popularity;
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> rejected = new EnumMap<>(Operation.class);
+
+    public LoadGenerator(Library library, SyntheticCatalogue catalogue, WorkloadConfig config) {
+        this.library = requireNonNull(library, "library must be provided");
+        this.catalogue = requireNonNull(catalogue, "catalogue must be provided");
+        this.config = requireNonNull(config, "config must be provided");
+        this.popularity = new ZipfSampler(catalogue.size(), config.zipfExponent());
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+            rejected.put(operation, new LongAdder());
+        }
+    }
+
+    public LoadReport run() {
+        SplittableRandom random = new SplittableRandom(config.seed());
+        int totalWeight = config.mix().values().stream().mapToInt(Integer::intValue).sum();
+        double borrowShare = config.mix().getOrDefault(Operation.BORROW, 0) / (double) totalWeight;
+        long burstPeriod = config.burstPeriod().toNanos();
+        long burstLength = config.burstLength().toNanos();
+
+        long start = System.nanoTime();
+        long end = start + config.duration().toNanos();
+        long intended = start;
+        long scheduled = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                boolean burst = (intended - start) % burstPeriod < burstLength;
+                double extraBorrowRate = burst ? config.targetRate() * borrowShare * (config.burstFactor() - 1) : 0;
+                double rate = config.targetRate() + extraBorrowRate;
+                intended += (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+                if (intended >= end) {
+                    break;
+                }
+                Operation operation = random.nextDouble() * rate < extraBorrowRate
+                        ? Operation.BORROW
+                        : pick(random, totalWeight);
+                String argument = argument(operation, random);
+                waitUntil(intended);
+                long intendedStart = intended;
+                executor.execute(() -> execute(operation, argument, intendedStart));
+                scheduled++;
+            }
+        }
+        return report(System.nanoTime() - start, scheduled);
+    }
+
+    private Operation pick(SplittableRandom random, int totalWeight) {
+        int ticket = random.nextInt(totalWeight);
+        for (Operation operation : Operation.values()) {
+            ticket -= config.mix().getOrDefault(operation, 0);
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("mix weights changed during run");
+    }
+
+    private String argument(Operation operation, SplittableRandom random) {
+        Book book = catalogue.book(popularity.sample(random));
+        return switch (operation) {
+            case LOOKUP, BORROW -> book.isbn();
+            case AUTHOR_SEARCH -> prefix(book.author(), random);
+            case TITLE_SEARCH -> prefix(book.title(), random);
+            case SUGGEST -> prefix(random.nextBoolean() ? book.author() : book.title(), random);
+        };
+    }
+
+    private String prefix(String value, SplittableRandom random) {
+        List<Integer> lengths = config.prefixLengths();
+        int length = lengths.get(random.nextInt(lengths.size()));
+        return value.substring(0, Math.min(length, value.length()));
+    }
+
+    private void execute(Operation operation, String argument, long intendedStart) {
+        try {
+            switch (operation) {
+                case LOOKUP -> library.findByIsbn(argument);
+                case BORROW -> library.borrow(argument);
+                case AUTHOR_SEARCH -> library.findByAuthor(argument);
+                case TITLE_SEARCH -> library.findByTitle(argument);
+                case SUGGEST -> library.suggest(argument, SUGGEST_LIMIT);
+            }
+        } catch (OverloadedException e) {
+            rejected.get(operation).increment();
+            return;
+        } catch (RuntimeException e) {
+            errors.get(operation).increment();
+        }
+        latencies.get(operation).record(System.nanoTime() - intendedStart);
+    }
+
+    private LoadReport report(long elapsedNanos, long scheduled) {
+        Map<Operation, LoadReport.OperationStats> stats = new EnumMap<>(Operation.class);
+        List<String> violations = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            long completed = histogram.count();
+            LoadReport.OperationStats operationStats = new LoadReport.OperationStats(
+                    completed,
+                    errors.get(operation).sum(),
+                    rejected.get(operation).sum(),
+                    histogram.valueAtQuantile(0.5),
+                    histogram.valueAtQuantile(0.99),
+                    histogram.valueAtQuantile(0.999),
+                    histogram.max(),
+                    completed * 1e9 / elapsedNanos);
+            stats.put(operation, operationStats);
+            if (completed > 0) {
+                checkSlo(violations, operation, "p99", operationStats.p99Nanos(), config.sloP99());
+                checkSlo(violations, operation, "p999", operationStats.p999Nanos(), config.sloP999());
+            }
+            long attempts = completed + operationStats.rejected();
+            if (attempts > 0) {
+                checkRate(violations, operation, "shed", operationStats.rejected(), attempts, config.maxShedRate());
+                checkRate(violations, operation, "error", operationStats.errors(), attempts, config.maxErrorRate());
+            }
+        }
+        return new LoadReport(Duration.ofNanos(elapsedNanos), scheduled, stats, violations);
+    }
+
+    private static void checkSlo(List<String> violations, Operation operation, String quantile, long actualNanos,
+                                 Duration slo) {
+        if (slo != null && actualNanos > slo.toNanos()) {
+            violations.add(String.format("%s %s %.3fms > %dms", operation, quantile, actualNanos / 1e6,
+                    slo.toMillis()));
+        }
+    }
+
+    private static void checkRate(List<String> violations, Operation operation, String kind, long count,
+                                  long attempts, Double maxRate) {
+        double rate = count / (double) attempts;
+        if (maxRate != null && rate > maxRate) {
+            violations.add(String.format("%s %s rate %.2f%% > %.2f%%", operation, kind, rate * 100, maxRate * 100));
+        }
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
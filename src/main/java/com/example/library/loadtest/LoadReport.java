@@ -0,0 +1,57 @@
+package com.example.library.loadtest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Result of a load run. Latencies are measured from each request's intended start time, so they include any
+ * time the request spent waiting because the system (or the generator) fell behind.
+ */
+public record LoadReport(Duration elapsed, long scheduled, Map<Operation, OperationStats> operations,
+                         List<String> sloViolations) {
+    public LoadReport {
+        Objects.requireNonNull(elapsed, "elapsed must be provided");
+        operations = Map.copyOf(operations);
+        sloViolations = List.copyOf(sloViolations);
+    }
+
+    public boolean passed() {
+        return sloViolations.isEmpty();
+    }
+
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("elapsed %.1fs, scheduled %d requests%n", elapsed.toNanos() / 1e9, scheduled));
+        out.append(String.format("%-14s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "ops/s", "errors", "shed", "p50 ms", "p99 ms", "p999 ms", "max ms", "count"));
+        for (Operation operation : Operation.values()) {
+            OperationStats stats = operations.get(operation);
+            if (stats == null || stats.completed() + stats.rejected() == 0) {
+                continue;
+            }
+            out.append(String.format("%-14s %10.0f %8d %8d %10.3f %10.3f %10.3f %10.3f %10d%n",
+                    operation, stats.throughputPerSecond(), stats.errors(), stats.rejected(),
+                    millis(stats.p50Nanos()), millis(stats.p99Nanos()), millis(stats.p999Nanos()),
+                    millis(stats.maxNanos()), stats.completed()));
+        }
+        for (String violation : sloViolations) {
+            out.append("SLO violated: ").append(violation).append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Per-operation results. {@code completed} includes calls that threw; calls shed by admission control are
+     * counted in {@code rejected} and excluded from the latency percentiles, so they are gated by a shed-rate SLO
+     * instead.
+     */
+    public record OperationStats(long completed, long errors, long rejected, long p50Nanos, long p99Nanos,
+                                 long p999Nanos, long maxNanos, double throughputPerSecond) {
+    }
+}
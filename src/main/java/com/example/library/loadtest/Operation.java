@@ -0,0 +1,12 @@
+package com.example.library.loadtest;
+
+/**
+ * Operations issued by the load generator.
+ */
+public enum Operation {
+    LOOKUP,
+    BORROW,
+    AUTHOR_SEARCH,
+    TITLE_SEARCH,
+    SUGGEST
+}
@@ -0,0 +1,77 @@
+package com.example.library.loadtest;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookType;
+import com.example.library.domain.CatalogueEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic catalogue: generated titles and a pool of authors about a tenth the size of the
+ * catalogue, so prefix queries match realistic numbers of books. Titles start with one of several leading words
+ * with distinct initials, so even one- or two-letter title prefixes select a fraction of the catalogue rather than
+ * all of it. About 5% are reference books.
+ */
+public final class SyntheticCatalogue {
+    private static final String[] SYLLABLES = {
+            "an", "bel", "cor", "dan", "el", "fal", "gor", "hal", "in", "jor", "kel", "lor", "mar", "nor", "or",
+            "pel", "quin", "ros", "sel", "tor", "ul", "var", "wen", "xan", "yor", "zel"};
+    private static final String[] LEADING_WORDS = {
+            "The", "A", "Beyond the", "Chronicles of the", "Dreams of the", "Every", "For the", "Inside the",
+            "Letters from the", "Maps of the", "No", "Out of the", "Prayers for the", "Rivers and", "Songs of the",
+            "Under the", "Voices of the", "Where the", "Young", "Zero"};
+    private static final String[] WORDS = {
+            "war", "peace", "night", "river", "stone", "garden", "empire", "shadow", "winter", "glass", "house",
+            "sea", "crown", "fire", "silence", "journey", "city", "storm", "letters", "mountain"};
+
+    private final List<Book> books;
+
+    public SyntheticCatalogue(int size, long seed) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        Random random = new Random(seed);
+        List<String> authors = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, size / 10); i++) {
+            authors.add(capitalize(name(random, 2)) + " " + capitalize(name(random, 3)));
+        }
+        books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String isbn = String.format("978%010d", i);
+            String title = LEADING_WORDS[random.nextInt(LEADING_WORDS.length)] + " "
+                    + capitalize(WORDS[random.nextInt(WORDS.length)]) + " of "
+                    + capitalize(name(random, 2)) + " " + i;
+            BookType type = random.nextInt(20) == 0 ? BookType.REFERENCE : BookType.NORMAL;
+            books.add(new Book(isbn, title, authors.get(random.nextInt(authors.size())), type));
+        }
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    public Book book(int index) {
+        return books.get(index);
+    }
+
+    /**
+     * Every book with the given number of copies, ready for {@code InventoryRepository.addBooks}.
+     */
+    public List<CatalogueEntry> entries(int copies) {
+        return books.stream().map(book -> new CatalogueEntry(book, copies)).toList();
+    }
+
+    private static String name(Random random, int syllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return name.toString();
+    }
+
+    private static String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+}
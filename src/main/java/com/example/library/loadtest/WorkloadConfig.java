@@ -0,0 +1,177 @@
+package com.example.library.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Open-loop workload definition.
+ * <p>
+ * Requests arrive as a Poisson process at {@code targetRate} per second; during the first {@code burstLength} of
+ * every {@code burstPeriod} the borrow rate is multiplied by {@code burstFactor}. ISBNs are drawn from a Zipf
+ * distribution over the catalogue, and prefix queries use a prefix of a Zipf-drawn book with a length picked
+ * uniformly from {@code prefixLengths}. {@code maxShedRate} and {@code maxErrorRate} bound the fraction of each
+ * operation's calls that are shed by admission control or throw, so a run cannot pass by shedding the calls that
+ * would have missed the latency SLOs. An SLO of {@code null} is not checked.
+ */
+public record WorkloadConfig(int books,
+                             double zipfExponent,
+                             double targetRate,
+                             Duration duration,
+                             Map<Operation, Integer> mix,
+                             List<Integer> prefixLengths,
+                             double burstFactor,
+                             Duration burstPeriod,
+                             Duration burstLength,
+                             Duration sloP99,
+                             Duration sloP999,
+                             Double maxShedRate,
+                             Double maxErrorRate,
+                             long seed) {
+    public WorkloadConfig {
+        if (books <= 0) {
+            throw new IllegalArgumentException("books must be positive");
+        }
+        if (zipfExponent < 0) {
+            throw new IllegalArgumentException("zipfExponent must be >= 0");
+        }
+        if (targetRate <= 0) {
+            throw new IllegalArgumentException("targetRate must be positive");
+        }
+        Objects.requireNonNull(duration, "duration must be provided");
+        Objects.requireNonNull(mix, "mix must be provided");
+        Objects.requireNonNull(prefixLengths, "prefixLengths must be provided");
+        Objects.requireNonNull(burstPeriod, "burstPeriod must be provided");
+        Objects.requireNonNull(burstLength, "burstLength must be provided");
+        if (mix.values().stream().anyMatch(weight -> weight < 0)
+                || mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("mix weights must be >= 0 with a positive sum");
+        }
+        if (prefixLengths.isEmpty() || prefixLengths.stream().anyMatch(length -> length <= 0)) {
+            throw new IllegalArgumentException("prefixLengths must be positive");
+        }
+        if (burstFactor < 1) {
+            throw new IllegalArgumentException("burstFactor must be >= 1");
+        }
+        if (burstPeriod.isZero() || burstPeriod.isNegative() || burstLength.compareTo(burstPeriod) > 0) {
+            throw new IllegalArgumentException("burstPeriod must be positive and at least burstLength");
+        }
+        if (maxShedRate != null && (maxShedRate < 0 || maxShedRate > 1)) {
+            throw new IllegalArgumentException("maxShedRate must be between 0 and 1");
+        }
+        if (maxErrorRate != null && (maxErrorRate < 0 || maxErrorRate > 1)) {
+            throw new IllegalArgumentException("maxErrorRate must be between 0 and 1");
+        }
+        mix = Map.copyOf(mix);
+        prefixLengths = List.copyOf(prefixLengths);
+    }
+
+    public static WorkloadConfig defaults() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        mix.put(Operation.LOOKUP, 40);
+        mix.put(Operation.BORROW, 30);
+        mix.put(Operation.AUTHOR_SEARCH, 10);
+        mix.put(Operation.TITLE_SEARCH, 10);
+        mix.put(Operation.SUGGEST, 10);
+        return new WorkloadConfig(100_000, 1.1, 10_000, Duration.ofSeconds(30), mix, List.of(1, 2, 3, 4, 6, 8),
+                3, Duration.ofSeconds(10), Duration.ofSeconds(2), Duration.ofMillis(10), Duration.ofMillis(50), 0.01, 0.0,
+                42);
+    }
+
+    /**
+     * Parses {@code --key=value} arguments over {@link #defaults()}. Durations use {@code ms} or {@code s}
+     * suffixes; the mix is given as {@code --mix=LOOKUP:40,BORROW:30,...}; rates are fractions such as
+     * {@code --max-shed-rate=0.01}; an SLO of {@code none} disables it.
+     */
+    public static WorkloadConfig fromArgs(String[] args) {
+        WorkloadConfig defaults = defaults();
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --key=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        WorkloadConfig config = new WorkloadConfig(
+                intValue(values.remove("books"), defaults.books()),
+                doubleValue(values.remove("zipf"), defaults.zipfExponent()),
+                doubleValue(values.remove("rate"), defaults.targetRate()),
+                durationValue(values.remove("duration"), defaults.duration()),
+                mixValue(values.remove("mix"), defaults.mix()),
+                lengthsValue(values.remove("prefix-lengths"), defaults.prefixLengths()),
+                doubleValue(values.remove("burst-factor"), defaults.burstFactor()),
+                durationValue(values.remove("burst-period"), defaults.burstPeriod()),
+                durationValue(values.remove("burst-length"), defaults.burstLength()),
+                sloValue(values.remove("slo-p99"), defaults.sloP99()),
+                sloValue(values.remove("slo-p999"), defaults.sloP999()),
+                rateValue(values.remove("max-shed-rate"), defaults.maxShedRate()),
+                rateValue(values.remove("max-error-rate"), defaults.maxErrorRate()),
+                values.containsKey("seed") ? Long.parseLong(values.remove("seed")) : defaults.seed());
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("unknown options: " + values.keySet());
+        }
+        return config;
+    }
+
+    private static int intValue(String value, int fallback) {
+        return value == null ? fallback : Integer.parseInt(value);
+    }
+
+    private static double doubleValue(String value, double fallback) {
+        return value == null ? fallback : Double.parseDouble(value);
+    }
+
+    private static Duration durationValue(String value, Duration fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        throw new IllegalArgumentException("duration must end with ms or s: " + value);
+    }
+
+    private static Duration sloValue(String value, Duration fallback) {
+        return "none".equals(value) ? null : durationValue(value, fallback);
+    }
+
+    private static Double rateValue(String value, Double fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        return "none".equals(value) ? null : Double.valueOf(value);
+    }
+
+    private static Map<Operation, Integer> mixValue(String value, Map<Operation, Integer> fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("mix entries must be OPERATION:weight: " + part);
+            }
+            mix.put(Operation.valueOf(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+        }
+        return mix;
+    }
+
+    private static List<Integer> lengthsValue(String value, List<Integer> fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .toList();
+    }
+}
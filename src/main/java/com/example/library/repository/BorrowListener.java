@@ -0,0 +1,13 @@
+package com.example.library.repository;
+
+/**
+ * Callback for successful borrows. Invoked after the borrow is applied and outside repository locks, on the
+ * borrowing thread, so implementations must be thread-safe and cheap.
+ */
+@FunctionalInterface
+public interface BorrowListener {
+    BorrowListener NONE = isbn -> {
+    };
+
+    void onBorrow(String isbn);
+}
@@ -0,0 +1,109 @@
+package com.example.library.repository;
+
+import com.example.library.domain.Book;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Immutable per-ISBN stock across branches. Only stocking branches are stored, as parallel arrays sorted by branch
+ * ordinal, and network-wide totals are kept alongside so they can be read without summing. Updates return new
+ * instances.
+ */
+final class BranchStock {
+    private final Book book;
+    private final int[] branches;
+    private final int[] totalCopies;
+    private final int[] borrowedCopies;
+    private final int networkTotal;
+    private final int networkBorrowed;
+
+    private BranchStock(Book book, int[] branches, int[] totalCopies, int[] borrowedCopies,
+                        int networkTotal, int networkBorrowed) {
+        this.book = book;
+        this.branches = branches;
+        this.totalCopies = totalCopies;
+        this.borrowedCopies = borrowedCopies;
+        this.networkTotal = networkTotal;
+        this.networkBorrowed = networkBorrowed;
+    }
+
+    static BranchStock create(Book book, int branch, int copies) {
+        return new BranchStock(book, new int[]{branch}, new int[]{copies}, new int[]{0}, copies, 0);
+    }
+
+    Book book() {
+        return book;
+    }
+
+    int networkTotal() {
+        return networkTotal;
+    }
+
+    int networkAvailable() {
+        return networkTotal - networkBorrowed;
+    }
+
+    int branchCount() {
+        return branches.length;
+    }
+
+    int branchAt(int position) {
+        return branches[position];
+    }
+
+    int availableAt(int position) {
+        return totalCopies[position] - borrowedCopies[position];
+    }
+
+    /**
+     * @return the branch's inventory item, or empty if the branch does not stock the book
+     */
+    Optional<InventoryItem> item(int branch) {
+        int position = Arrays.binarySearch(branches, branch);
+        if (position < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new InventoryItem(book, totalCopies[position], borrowedCopies[position]));
+    }
+
+    /**
+     * Rejects additions that would overflow the network total, which bounds every branch total, with
+     * {@link IllegalArgumentException} so batch imports reject the row rather than abort.
+     */
+    BranchStock addCopies(int branch, int copies) {
+        if (copies > Integer.MAX_VALUE - networkTotal) {
+            throw new IllegalArgumentException("totalCopies must not exceed " + Integer.MAX_VALUE);
+        }
+        int position = Arrays.binarySearch(branches, branch);
+        if (position >= 0) {
+            int[] total = totalCopies.clone();
+            total[position] += copies;
+            return new BranchStock(book, branches, total, borrowedCopies, networkTotal + copies, networkBorrowed);
+        }
+        int insertAt = -position - 1;
+        return new BranchStock(book,
+                insert(branches, insertAt, branch),
+                insert(totalCopies, insertAt, copies),
+                insert(borrowedCopies, insertAt, 0),
+                networkTotal + copies, networkBorrowed);
+    }
+
+    Optional<BranchStock> borrowOne(int branch) {
+        int position = Arrays.binarySearch(branches, branch);
+        if (position < 0 || borrowedCopies[position] >= totalCopies[position]) {
+            return Optional.empty();
+        }
+        int[] borrowed = borrowedCopies.clone();
+        borrowed[position]++;
+        return Optional.of(new BranchStock(book, branches, totalCopies, borrowed, networkTotal, networkBorrowed + 1));
+    }
+
+    private static int[] insert(int[] values, int index, int value) {
+        int[] result = new int[values.length + 1];
+        System.arraycopy(values, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(values, index, result, index + 1, values.length - index);
+        return result;
+    }
+}
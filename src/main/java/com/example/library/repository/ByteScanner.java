@@ -0,0 +1,48 @@
+package com.example.library.repository;
+
+/**
+ * Finds a byte sequence in a byte array. Implementations are stateless and thread-safe.
+ */
+interface ByteScanner {
+    /**
+     * Position of the first occurrence of {@code needle} that lies entirely within {@code [from, to)}, or
+     * {@code -1}. The needle must not be empty.
+     */
+    int indexOf(byte[] data, int from, int to, byte[] needle);
+
+    String name();
+
+    /**
+     * The Vector API scanner when the {@code jdk.incubator.vector} module is present (run with
+     * {@code --add-modules jdk.incubator.vector}), otherwise the scalar one. The vector class is only loaded after
+     * the module check, so a JVM without the module never links against it.
+     */
+    static ByteScanner preferred() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return ScalarByteScanner.INSTANCE;
+        }
+        try {
+            return (ByteScanner) Class.forName("com.example.library.repository.VectorByteScanner")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return ScalarByteScanner.INSTANCE;
+        }
+    }
+
+    static ByteScanner scalar() {
+        return ScalarByteScanner.INSTANCE;
+    }
+
+    /**
+     * Compares the needle against {@code data} at {@code position}, which the caller has bounds-checked.
+     */
+    static boolean matchesAt(byte[] data, int position, byte[] needle) {
+        for (int i = 0; i < needle.length; i++) {
+            if (data[position + i] != needle[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,15 +1,28 @@
 package com.example.library.repository;
 
 import com.example.library.domain.Book;
+import com.example.library.domain.BookQuery;
+import com.example.library.domain.CatalogueEntry;
 import com.example.library.util.LibraryUtils;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.example.library.domain.BookType.REFERENCE;
 import static com.example.library.util.LibraryUtils.isBlank;
@@ -18,20 +31,177 @@ import static java.util.Optional.empty;
 import static java.util.Optional.of;
 
 /**
- * Thread-safe in-memory repository. All public operations are synchronized.
+ * Thread-safe in-memory repository. Mutations and index reads are synchronized on the repository.
  * Indexes are updated during {@link #addBook(Book, int)} so reads after the method returns observe updated indexes.
+ * Storage uses concurrent collections so streams can be consumed lazily without holding the monitor.
+ * <p>
+ * In {@link IndexBuildMode#DEFERRED} mode the author/title indexes are skipped while loading and built later in
+ * the background by {@link #buildIndexesAsync(ForkJoinPool)}. Until that build completes, prefix queries scan the
+ * primary map in parallel without taking the monitor, so borrows are never blocked behind them.
+ * <p>
+ * {@link SecondaryIndex Secondary indexes} are only built and maintained when enabled at construction; without them
+ * {@link #suggest(String, int)}, {@link #searchContaining(String, int)} and {@link #findByQuery(BookQuery)} use the
+ * default scans.
  */
 public class InMemoryInventoryRepository implements InventoryRepository {
+    private static final int SUGGESTION_BUILD_BATCH = 1024;
+    /**
+     * Queued suggestion updates that start a background apply, and the most {@link #suggest(String, int)} applies.
+     */
+    private static final int SUGGESTION_UPDATE_BATCH = 256;
 
-    private final Map<String, InventoryItem> inventoryByIsbn = new HashMap<>();
+    private final Map<String, InventoryItem> inventoryByIsbn = new ConcurrentHashMap<>();
     /**
      * Author index used for case-insensitive prefix lookups.
      */
-    private final NavigableMap<String, Set<String>> authorIndex = new TreeMap<>();
+    private final PrefixIndex authorIndex = new PrefixIndex();
     /**
      * Title index used for case-insensitive prefix lookups.
      */
-    private final NavigableMap<String, Set<String>> titleIndex = new TreeMap<>();
+    private final PrefixIndex titleIndex = new PrefixIndex();
+    /**
+     * Title and author prefixes with precomputed most-borrowed entries, for {@link #suggest(String, int)}; guarded
+     * by itself, except for {@link SuggestionTrie#recordScore(String, long)} under {@code this}. When both locks are
+     * needed, {@code this} is taken first. Null unless {@link SecondaryIndex#SUGGESTIONS} is enabled.
+     */
+    private final SuggestionTrie suggestions;
+    private final AtomicBoolean suggestionUpdateScheduled = new AtomicBoolean();
+    /**
+     * Packed title and author text for {@link #searchContaining(String, int)}; replaced under {@code this} when a
+     * deferred build fails. Null unless {@link SecondaryIndex#SUBSTRINGS} is enabled.
+     */
+    private volatile SubstringIndex substrings;
+    /**
+     * Id posting lists for {@link #findByQuery(BookQuery)}; guarded by {@code this}. Null unless
+     * {@link SecondaryIndex#QUERIES} is enabled.
+     */
+    private final QueryIndex queryIndex;
+    private final BorrowListener borrowListener;
+    private volatile IndexState indexState;
+    /**
+     * Guarded by {@code this}; set once a deferred build starts.
+     */
+    private CompletableFuture<Void> indexBuild;
+
+    public InMemoryInventoryRepository() {
+        this(BorrowListener.NONE);
+    }
+
+    public InMemoryInventoryRepository(BorrowListener borrowListener) {
+        this(borrowListener, IndexBuildMode.EAGER);
+    }
+
+    public InMemoryInventoryRepository(BorrowListener borrowListener, IndexBuildMode indexBuildMode) {
+        this(borrowListener, indexBuildMode, EnumSet.noneOf(SecondaryIndex.class));
+    }
+
+    public InMemoryInventoryRepository(BorrowListener borrowListener, IndexBuildMode indexBuildMode,
+                                       Set<SecondaryIndex> secondaryIndexes) {
+        this.borrowListener = requireNonNull(borrowListener, "borrowListener must be provided");
+        requireNonNull(indexBuildMode, "indexBuildMode must be provided");
+        requireNonNull(secondaryIndexes, "secondaryIndexes must be provided");
+        this.suggestions = secondaryIndexes.contains(SecondaryIndex.SUGGESTIONS) ? new SuggestionTrie() : null;
+        this.substrings = secondaryIndexes.contains(SecondaryIndex.SUBSTRINGS) ? SubstringIndex.vectorized() : null;
+        this.queryIndex = secondaryIndexes.contains(SecondaryIndex.QUERIES)
+                ? new QueryIndex(authorIndex, titleIndex, inventoryByIsbn::get)
+                : null;
+        this.indexState = indexBuildMode == IndexBuildMode.EAGER ? IndexState.READY : IndexState.PENDING;
+        this.indexBuild = indexState == IndexState.READY ? CompletableFuture.completedFuture(null) : null;
+    }
+
+    /**
+     * Starts building the deferred indexes on the given pool; items added from now on are indexed directly.
+     * Later calls return the same future. Prefix queries switch to the indexes once it completes.
+     * <p>
+     * If the build fails, or the pool rejects it, the returned future completes exceptionally and the repository
+     * goes back to scanning, so a later call starts a new build. The other indexes skip items they already hold,
+     * so rebuilding is safe over them, but the substring index does not and is replaced with an empty one.
+     */
+    public synchronized CompletableFuture<Void> buildIndexesAsync(ForkJoinPool pool) {
+        requireNonNull(pool, "pool must be provided");
+        if (indexBuild != null) {
+            return indexBuild;
+        }
+        CompletableFuture<Void> build = new CompletableFuture<>();
+        indexState = IndexState.BUILDING;
+        indexBuild = build;
+        // items added from now on are indexed by addBook, so the build must not see them
+        List<String> isbns = List.copyOf(inventoryByIsbn.keySet());
+        try {
+            CompletableFuture.runAsync(() -> buildIndexes(isbns), pool)
+                    .whenComplete((ignored, failure) -> finishIndexBuild(build, failure));
+        } catch (RejectedExecutionException e) {
+            finishIndexBuild(build, e);
+        }
+        return build;
+    }
+
+    private synchronized void finishIndexBuild(CompletableFuture<Void> build, Throwable failure) {
+        if (failure == null) {
+            indexState = IndexState.READY;
+            build.complete(null);
+            return;
+        }
+        indexState = IndexState.PENDING;
+        indexBuild = null;
+        if (substrings != null) {
+            substrings = SubstringIndex.vectorized();
+        }
+        build.completeExceptionally(failure);
+    }
+
+    public boolean indexesReady() {
+        return indexState == IndexState.READY;
+    }
+
+    /**
+     * Prefix indexes are concurrent and filled in parallel outside the monitor. The suggestion trie is not, so it is
+     * filled in small batches under the monitor with each item's current borrow count; queued borrow updates for
+     * keys that are not indexed yet are ignored, which keeps the trie exact. The substring and query indexes are
+     * filled in the same batches. Without secondary indexes only the prefix indexes are built.
+     * <p>
+     * Only the given ISBNs, present when the build started, are indexed; later additions index themselves.
+     */
+    private void buildIndexes(List<String> isbns) {
+        isbns.parallelStream().map(inventoryByIsbn::get).forEach(item -> {
+            authorIndex.add(item.book().author(), item.book().isbn());
+            titleIndex.add(item.book().title(), item.book().isbn());
+        });
+        if (suggestions == null && substrings == null && queryIndex == null) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(SUGGESTION_BUILD_BATCH);
+        for (String isbn : isbns) {
+            batch.add(isbn);
+            if (batch.size() == SUGGESTION_BUILD_BATCH) {
+                addSecondary(batch);
+                batch.clear();
+            }
+        }
+        addSecondary(batch);
+    }
+
+    private synchronized void addSecondary(List<String> isbns) {
+        for (String isbn : isbns) {
+            InventoryItem item = inventoryByIsbn.get(isbn);
+            addSecondary(item.book(), item.borrowedCopies());
+        }
+    }
+
+    private void addSecondary(Book book, int borrowed) {
+        if (suggestions != null) {
+            synchronized (suggestions) {
+                suggestions.add(LibraryUtils.normalizeLower(book.author()), book.isbn(), borrowed);
+                suggestions.add(LibraryUtils.normalizeLower(book.title()), book.isbn(), borrowed);
+            }
+        }
+        if (substrings != null) {
+            substrings.add(book.isbn(), book.title(), book.author());
+        }
+        if (queryIndex != null) {
+            queryIndex.add(book);
+        }
+    }
 
     /**
      * Indexes only need updates when new inventory items are created or book metadata changes.
@@ -48,8 +218,11 @@ public class InMemoryInventoryRepository implements InventoryRepository {
         if (existing == null) {
             InventoryItem created = InventoryItem.create(book, copies);
             inventoryByIsbn.put(isbn, created);
-            indexExact(authorIndex, book.author(), isbn);
-            indexExact(titleIndex, book.title(), isbn);
+            if (indexState != IndexState.PENDING) {
+                authorIndex.add(book.author(), isbn);
+                titleIndex.add(book.title(), isbn);
+                addSecondary(book, 0);
+            }
             return;
         }
         if (!existing.book().equals(book)) {
@@ -58,6 +231,15 @@ public class InMemoryInventoryRepository implements InventoryRepository {
         inventoryByIsbn.put(isbn, existing.addCopies(copies));
     }
 
+    /**
+     * Applies the whole batch under a single lock acquisition.
+     */
+    @Override
+    public synchronized int addBooks(List<CatalogueEntry> entries, ObjIntConsumer<String> onRejected) {
+        requireNonNull(entries, "entries must be provided");
+        return InventoryRepository.super.addBooks(entries, onRejected);
+    }
+
     @Override
     public synchronized Optional<InventoryItem> findByIsbn(String isbn) {
         if (isBlank(isbn)) return empty();
@@ -66,9 +248,41 @@ public class InMemoryInventoryRepository implements InventoryRepository {
 
     /**
      * Indexes reference ISBNs, so borrow updates are reflected without reindexing.
+     * The borrow listener is notified after the monitor is released.
+     * <p>
+     * With suggestions enabled, the new borrow count is recorded in the suggestion trie, which queues it only if it
+     * can change which books a full ranking lists; most borrows cannot. Once {@value #SUGGESTION_UPDATE_BATCH} updates
+     * are queued, they are applied on the common pool, outside the monitor.
      */
     @Override
-    public synchronized boolean tryBorrow(String isbn) {
+    public boolean tryBorrow(String isbn) {
+        if (!borrowLocked(isbn)) {
+            return false;
+        }
+        scheduleSuggestionUpdates();
+        borrowListener.onBorrow(isbn);
+        return true;
+    }
+
+    private void scheduleSuggestionUpdates() {
+        if (suggestions == null || suggestions.queued() < SUGGESTION_UPDATE_BATCH
+                || !suggestionUpdateScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        ForkJoinPool.commonPool().execute(() -> {
+            try {
+                synchronized (suggestions) {
+                    suggestions.applyQueued();
+                }
+            } finally {
+                suggestionUpdateScheduled.set(false);
+            }
+            // a batch queued after the apply but before the flag was cleared found it set
+            scheduleSuggestionUpdates();
+        });
+    }
+
+    private synchronized boolean borrowLocked(String isbn) {
         if (isBlank(isbn)) return false;
         InventoryItem item = inventoryByIsbn.get(isbn);
         if (item == null) {
@@ -80,33 +294,152 @@ public class InMemoryInventoryRepository implements InventoryRepository {
         return item.borrowOne()
                 .map(updated -> {
                     inventoryByIsbn.put(isbn, updated);
+                    if (suggestions != null && indexState != IndexState.PENDING) {
+                        suggestions.recordScore(isbn, updated.borrowedCopies());
+                    }
                     return true;
                 })
                 .orElse(false);
     }
 
     @Override
-    public synchronized Optional<Set<InventoryItem>> findByAuthor(String author) {
+    public Optional<Set<InventoryItem>> findByAuthor(String author) {
         requireNonNull(author, "author must be provided");
         String normalizedAuthor = LibraryUtils.normalizeLower(author);
         if (isBlank(normalizedAuthor)) {
             return empty();
         }
-        Set<InventoryItem> items = findItemsByPrefix(authorIndex, normalizedAuthor);
+        Set<InventoryItem> items = indexesReady()
+                ? findItemsByPrefix(authorIndex, normalizedAuthor)
+                : scanByPrefix(Book::author, normalizedAuthor);
         return items.isEmpty() ? empty() : of(items);
     }
 
     @Override
-    public synchronized Optional<Set<InventoryItem>> findByTitle(String titleQuery) {
+    public Optional<Set<InventoryItem>> findByTitle(String titleQuery) {
         requireNonNull(titleQuery, "title must be provided");
         String normalizedTitle = LibraryUtils.normalizeLower(titleQuery);
         if (isBlank(normalizedTitle)) {
             return empty();
         }
-        Set<InventoryItem> items = findItemsByPrefix(titleIndex, normalizedTitle);
+        Set<InventoryItem> items = indexesReady()
+                ? findItemsByPrefix(titleIndex, normalizedTitle)
+                : scanByPrefix(Book::title, normalizedTitle);
+        return items.isEmpty() ? empty() : of(items);
+    }
+
+    /**
+     * Answered from precomputed per-prefix rankings when the prefix is within the trie depth and the limit within
+     * the per-node capacity; otherwise, or without {@link SecondaryIndex#SUGGESTIONS}, falls back to the default.
+     * <p>
+     * Entries are ordered by current borrow counts, and a prefix matching fewer books than the capacity always
+     * lists all of them. Queued trie updates are applied first when there are at most
+     * {@value #SUGGESTION_UPDATE_BATCH} of them; more are left to a background apply, and until it runs, which books
+     * are listed may lag behind those borrows.
+     */
+    @Override
+    public List<InventoryItem> suggest(String prefix, int limit) {
+        requireNonNull(prefix, "prefix must be provided");
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        String normalized = LibraryUtils.normalizeLower(prefix);
+        if (isBlank(normalized)) {
+            return List.of();
+        }
+        if (suggestions == null || !indexesReady() || !suggestions.supports(normalized)
+                || limit > suggestions.capacity()) {
+            return InventoryRepository.super.suggest(prefix, limit);
+        }
+        List<String> isbns;
+        synchronized (suggestions) {
+            if (suggestions.queued() <= SUGGESTION_UPDATE_BATCH) {
+                suggestions.applyQueued();
+            }
+            isbns = suggestions.top(normalized, limit);
+        }
+        scheduleSuggestionUpdates();
+        List<InventoryItem> items = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            InventoryItem item = inventoryByIsbn.get(isbn);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Runs on id posting lists under the monitor once indexes are ready; before that, or without
+     * {@link SecondaryIndex#QUERIES}, falls back to the default scan.
+     */
+    @Override
+    public Optional<Set<InventoryItem>> findByQuery(BookQuery query) {
+        requireNonNull(query, "query must be provided");
+        if (queryIndex == null || !indexesReady()) {
+            return InventoryRepository.super.findByQuery(query);
+        }
+        Set<InventoryItem> items = findItemsByQuery(query);
         return items.isEmpty() ? empty() : of(items);
     }
 
+    private synchronized Set<InventoryItem> findItemsByQuery(BookQuery query) {
+        return queryIndex.execute(query).stream()
+                .map(inventoryByIsbn::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    /**
+     * Scans the packed substring index without taking the monitor, then keeps the {@code limit} most borrowed
+     * matches in a bounded heap. Falls back to the default scan until deferred indexes are ready, or always without
+     * {@link SecondaryIndex#SUBSTRINGS}.
+     */
+    @Override
+    public List<InventoryItem> searchContaining(String query, int limit) {
+        requireNonNull(query, "query must be provided");
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        SubstringIndex index = substrings;
+        if (index == null || !indexesReady()) {
+            return InventoryRepository.super.searchContaining(query, limit);
+        }
+        PriorityQueue<InventoryItem> top = new PriorityQueue<>(InventoryItem.BY_POPULARITY.reversed());
+        for (String isbn : index.isbnsContaining(query)) {
+            InventoryItem item = inventoryByIsbn.get(isbn);
+            if (item == null) {
+                continue;
+            }
+            top.add(item);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<InventoryItem> items = new ArrayList<>(top);
+        items.sort(InventoryItem.BY_POPULARITY);
+        return items;
+    }
+
+    @Override
+    public Stream<InventoryItem> streamByAuthor(String authorQuery) {
+        requireNonNull(authorQuery, "author must be provided");
+        String normalized = LibraryUtils.normalizeLower(authorQuery);
+        return indexesReady() ? streamByPrefix(authorIndex, normalized) : streamScan(Book::author, normalized);
+    }
+
+    @Override
+    public Stream<InventoryItem> streamByTitle(String titleQuery) {
+        requireNonNull(titleQuery, "title must be provided");
+        String normalized = LibraryUtils.normalizeLower(titleQuery);
+        return indexesReady() ? streamByPrefix(titleIndex, normalized) : streamScan(Book::title, normalized);
+    }
+
+    @Override
+    public Stream<InventoryItem> streamAll() {
+        return inventoryByIsbn.values().stream();
+    }
+
     @Override
     public synchronized int totalBorrowedCount() {
         return inventoryByIsbn.values().stream()
@@ -114,29 +447,33 @@ public class InMemoryInventoryRepository implements InventoryRepository {
                 .sum();
     }
 
-    private void indexExact(Map<String, Set<String>> index, String value, String isbn) {
-        String normalized = LibraryUtils.normalizeLower(value);
+    private Stream<InventoryItem> streamByPrefix(PrefixIndex index, String normalized) {
+        return index.isbnsWithPrefix(normalized)
+                .map(inventoryByIsbn::get)
+                .filter(Objects::nonNull);
+    }
+
+    private synchronized Set<InventoryItem> findItemsByPrefix(PrefixIndex index, String normalized) {
+        return streamByPrefix(index, normalized).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private Set<InventoryItem> scanByPrefix(Function<Book, String> field, String normalized) {
+        return inventoryByIsbn.values().parallelStream()
+                .filter(item -> LibraryUtils.normalizeLower(field.apply(item.book())).startsWith(normalized))
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private Stream<InventoryItem> streamScan(Function<Book, String> field, String normalized) {
         if (isBlank(normalized)) {
-            return;
+            return Stream.empty();
         }
-        index.computeIfAbsent(normalized, k -> new HashSet<>()).add(isbn);
+        return inventoryByIsbn.values().stream()
+                .filter(item -> LibraryUtils.normalizeLower(field.apply(item.book())).startsWith(normalized));
     }
 
-    private Set<InventoryItem> findItemsByPrefix(NavigableMap<String, Set<String>> index, String normalized) {
-        NavigableMap<String, Set<String>> range =
-                index.subMap(normalized, true, normalized + Character.MAX_VALUE, true);
-        if (range.isEmpty()) {
-            return Set.of();
-        }
-        Set<InventoryItem> items = new HashSet<>();
-        for (Set<String> isbns : range.values()) {
-            for (String isbn : isbns) {
-                InventoryItem item = inventoryByIsbn.get(isbn);
-                if (item != null) {
-                    items.add(item);
-                }
-            }
-        }
-        return items;
+    private enum IndexState {
+        PENDING,
+        BUILDING,
+        READY
     }
 }
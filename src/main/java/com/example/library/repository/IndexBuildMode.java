@@ -0,0 +1,17 @@
+package com.example.library.repository;
+
+/**
+ * When {@link InMemoryInventoryRepository} builds its author/title indexes.
+ */
+public enum IndexBuildMode {
+    /**
+     * Indexes are maintained by every {@code addBook}.
+     */
+    EAGER,
+    /**
+     * {@code addBook} only fills the primary ISBN map until
+     * {@link InMemoryInventoryRepository#buildIndexesAsync(java.util.concurrent.ForkJoinPool)} is called; prefix
+     * queries fall back to a parallel scan until the build completes. ISBN lookups and borrows are unaffected.
+     */
+    DEFERRED
+}
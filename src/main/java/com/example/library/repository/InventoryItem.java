@@ -3,6 +3,7 @@ package com.example.library.repository;
 import com.example.library.domain.Book;
 import com.example.library.domain.BookAvailability;
 
+import java.util.Comparator;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -10,6 +11,13 @@ import java.util.Optional;
  * Immutable inventory record. Updates return new instances.
  */
 public record InventoryItem(Book book, int totalCopies, int borrowedCopies) {
+    /**
+     * Most borrowed first, ties broken by ISBN.
+     */
+    public static final Comparator<InventoryItem> BY_POPULARITY =
+            Comparator.comparingInt(InventoryItem::borrowedCopies).reversed()
+                    .thenComparing(item -> item.book().isbn());
+
     public InventoryItem {
         Objects.requireNonNull(book, "book must be provided");
         if (totalCopies < 0) {
@@ -35,6 +43,9 @@ public record InventoryItem(Book book, int totalCopies, int borrowedCopies) {
         if (copies <= 0) {
             throw new IllegalArgumentException("copies must be > 0");
         }
+        if (copies > Integer.MAX_VALUE - totalCopies) {
+            throw new IllegalArgumentException("totalCopies must not exceed " + Integer.MAX_VALUE);
+        }
         return new InventoryItem(book, totalCopies + copies, borrowedCopies);
     }
 
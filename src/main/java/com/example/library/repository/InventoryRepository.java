@@ -1,8 +1,19 @@
 package com.example.library.repository;
 
 import com.example.library.domain.Book;
+import com.example.library.domain.BookQuery;
+import com.example.library.domain.CatalogueEntry;
+import com.example.library.util.LibraryUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Repository abstraction for accessing and mutating the inventory.
@@ -16,6 +27,39 @@ public interface InventoryRepository {
      */
     void addBook(Book book, int copies);
 
+    /**
+     * Adds a batch of entries. Entries rejected by {@link #addBook(Book, int)} (for example an ISBN that already
+     * exists with different book details) are skipped; the rest of the batch is still applied.
+     *
+     * @return number of entries that were added
+     */
+    default int addBooks(List<CatalogueEntry> entries) {
+        return addBooks(entries, (reason, index) -> {
+        });
+    }
+
+    /**
+     * Adds a batch of entries in list order, like {@link #addBooks(List)}, and reports each rejected entry to
+     * {@code onRejected} with the rejection reason and the entry's index in {@code entries}.
+     * Implementations that override either batch method should override this one.
+     *
+     * @return number of entries that were added
+     */
+    default int addBooks(List<CatalogueEntry> entries, ObjIntConsumer<String> onRejected) {
+        Objects.requireNonNull(onRejected, "onRejected must be provided");
+        int accepted = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            CatalogueEntry entry = entries.get(i);
+            try {
+                addBook(entry.book(), entry.copies());
+                accepted++;
+            } catch (IllegalArgumentException e) {
+                onRejected.accept(e.getMessage(), i);
+            }
+        }
+        return accepted;
+    }
+
     /**
      * Finds all inventory items where author starts with the query (case-insensitive).
      */
@@ -26,6 +70,81 @@ public interface InventoryRepository {
      */
     Optional<Set<InventoryItem>> findByTitle(String titleQuery);
 
+    /**
+     * Finds all inventory items matching a boolean query over author prefix, title prefix, type and availability.
+     * <p>
+     * The default implementation evaluates the query against every item from {@link #streamAll()}; indexed
+     * implementations should answer in time proportional to the most selective clause.
+     */
+    default Optional<Set<InventoryItem>> findByQuery(BookQuery query) {
+        Objects.requireNonNull(query, "query must be provided");
+        Set<InventoryItem> items = streamAll()
+                .filter(item -> query.matches(item.book(), item.availableCopies()))
+                .collect(Collectors.toSet());
+        return items.isEmpty() ? Optional.empty() : Optional.of(items);
+    }
+
+    /**
+     * Lazily streams inventory items where author starts with the query (case-insensitive).
+     * The stream is weakly consistent: it reflects some state of the inventory at or since its creation and
+     * does not materialize the result, so memory use does not grow with the number of matches.
+     */
+    Stream<InventoryItem> streamByAuthor(String authorQuery);
+
+    /**
+     * Lazily streams inventory items where title starts with the query (case-insensitive).
+     * Same consistency guarantees as {@link #streamByAuthor(String)}.
+     */
+    Stream<InventoryItem> streamByTitle(String titleQuery);
+
+    /**
+     * Lazily streams every inventory item.
+     * Same consistency guarantees as {@link #streamByAuthor(String)}.
+     */
+    Stream<InventoryItem> streamAll();
+
+    /**
+     * Suggests up to {@code limit} items whose title or author starts with the prefix (case-insensitive),
+     * most borrowed first, ties broken by ISBN.
+     * <p>
+     * The default implementation materializes both prefix searches; indexed implementations should answer
+     * in time independent of the number of matches.
+     */
+    default List<InventoryItem> suggest(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        Map<String, InventoryItem> matches = new LinkedHashMap<>();
+        findByTitle(prefix).ifPresent(items -> items.forEach(item -> matches.put(item.book().isbn(), item)));
+        findByAuthor(prefix).ifPresent(items -> items.forEach(item -> matches.put(item.book().isbn(), item)));
+        return matches.values().stream()
+                .sorted(InventoryItem.BY_POPULARITY)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Finds up to {@code limit} items whose title or author contains the query (case-insensitive), most borrowed
+     * first, ties broken by ISBN.
+     * <p>
+     * The default implementation normalizes and scans every item from {@link #streamAll()}.
+     */
+    default List<InventoryItem> searchContaining(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        String normalized = LibraryUtils.normalizeLower(query);
+        if (LibraryUtils.isBlank(normalized)) {
+            return List.of();
+        }
+        return streamAll()
+                .filter(item -> LibraryUtils.normalizeLower(item.book().title()).contains(normalized)
+                        || LibraryUtils.normalizeLower(item.book().author()).contains(normalized))
+                .sorted(InventoryItem.BY_POPULARITY)
+                .limit(limit)
+                .toList();
+    }
+
     /**
      * Finds a single inventory item by ISBN (exact match).
      */
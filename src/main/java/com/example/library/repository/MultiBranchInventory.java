@@ -0,0 +1,279 @@
+package com.example.library.repository;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.CatalogueEntry;
+import com.example.library.domain.NetworkAvailability;
+import com.example.library.util.LibraryUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.example.library.domain.BookType.REFERENCE;
+import static com.example.library.util.LibraryUtils.isBlank;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+
+/**
+ * Thread-safe inventory for a network of branches that share one catalogue.
+ * <p>
+ * Book metadata and the author/title indexes exist once for the whole network; each ISBN carries compact per-branch
+ * copy counts plus maintained network-wide totals, so cross-branch availability is a single map lookup.
+ * Each branch also keeps the set of ISBNs it stocks. A branch-filtered search walks the smaller of the shared
+ * index's matches and that set and checks the other, so a small branch never pays for the whole network.
+ * <p>
+ * Mutations and Set-returning searches are synchronized; availability lookups and streams read immutable stock
+ * snapshots from concurrent collections without locking. {@link #branch(String)} adapts a single branch to
+ * {@link InventoryRepository}, so a {@code LibraryService} can serve it directly.
+ */
+public class MultiBranchInventory {
+    private final List<String> branchIds;
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Map<String, BranchStock> stockByIsbn = new ConcurrentHashMap<>();
+    private final PrefixIndex authorIndex = new PrefixIndex();
+    private final PrefixIndex titleIndex = new PrefixIndex();
+    /**
+     * ISBNs stocked by each branch, by ordinal.
+     */
+    private final List<Set<String>> isbnsByBranch;
+    private final int[] borrowedByBranch;
+
+    public MultiBranchInventory(Collection<String> branchIds) {
+        requireNonNull(branchIds, "branchIds must be provided");
+        this.branchIds = List.copyOf(branchIds);
+        if (this.branchIds.isEmpty()) {
+            throw new IllegalArgumentException("at least one branch must be provided");
+        }
+        for (String branchId : this.branchIds) {
+            LibraryUtils.requireNonBlank(branchId, "branchId");
+            if (ordinals.putIfAbsent(branchId, ordinals.size()) != null) {
+                throw new IllegalArgumentException("duplicate branch: " + branchId);
+            }
+        }
+        this.borrowedByBranch = new int[this.branchIds.size()];
+        List<Set<String>> stocked = new ArrayList<>(this.branchIds.size());
+        for (int i = 0; i < this.branchIds.size(); i++) {
+            stocked.add(ConcurrentHashMap.newKeySet());
+        }
+        this.isbnsByBranch = List.copyOf(stocked);
+    }
+
+    public List<String> branchIds() {
+        return branchIds;
+    }
+
+    /**
+     * Adds copies of a book to one branch. The book must match the catalogue entry for its ISBN, if any.
+     */
+    public synchronized void addBook(String branchId, Book book, int copies) {
+        int branch = ordinal(branchId);
+        requireNonNull(book, "book must be provided");
+        if (copies <= 0) {
+            throw new IllegalArgumentException("copies must be positive");
+        }
+        String isbn = LibraryUtils.requireNonBlank(book.isbn(), "isbn");
+
+        BranchStock existing = stockByIsbn.get(isbn);
+        if (existing == null) {
+            stockByIsbn.put(isbn, BranchStock.create(book, branch, copies));
+            isbnsByBranch.get(branch).add(isbn);
+            authorIndex.add(book.author(), isbn);
+            titleIndex.add(book.title(), isbn);
+            return;
+        }
+        if (!existing.book().equals(book)) {
+            throw new IllegalArgumentException("ISBN already exists with different book details");
+        }
+        stockByIsbn.put(isbn, existing.addCopies(branch, copies));
+        isbnsByBranch.get(branch).add(isbn);
+    }
+
+    public synchronized boolean tryBorrow(String branchId, String isbn) {
+        int branch = ordinal(branchId);
+        if (isBlank(isbn)) return false;
+        BranchStock stock = stockByIsbn.get(isbn);
+        if (stock == null || stock.book().type() == REFERENCE) {
+            return false;
+        }
+        return stock.borrowOne(branch)
+                .map(updated -> {
+                    stockByIsbn.put(isbn, updated);
+                    borrowedByBranch[branch]++;
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Available copies of the ISBN across the whole network, read from the maintained aggregate.
+     */
+    public int availableCopies(String isbn) {
+        if (isBlank(isbn)) return 0;
+        BranchStock stock = stockByIsbn.get(isbn);
+        return stock == null ? 0 : stock.networkAvailable();
+    }
+
+    /**
+     * Network-wide availability with a per-branch breakdown of the branches that stock the ISBN.
+     */
+    public Optional<NetworkAvailability> findAvailability(String isbn) {
+        if (isBlank(isbn)) return empty();
+        BranchStock stock = stockByIsbn.get(isbn);
+        if (stock == null) {
+            return empty();
+        }
+        Map<String, Integer> byBranch = new HashMap<>();
+        for (int i = 0; i < stock.branchCount(); i++) {
+            byBranch.put(branchIds.get(stock.branchAt(i)), stock.availableAt(i));
+        }
+        return of(new NetworkAvailability(stock.book(), stock.networkTotal(), stock.networkAvailable(), byBranch));
+    }
+
+    /**
+     * Items stocked by the branch whose author starts with the query (case-insensitive).
+     */
+    public synchronized Optional<Set<InventoryItem>> findByAuthor(String branchId, String authorQuery) {
+        int branch = ordinal(branchId);
+        requireNonNull(authorQuery, "author must be provided");
+        return nonEmpty(streamByPrefix(authorIndex, Book::author, branch, authorQuery)
+                .collect(Collectors.toCollection(HashSet::new)));
+    }
+
+    /**
+     * Items stocked by the branch whose title starts with the query (case-insensitive).
+     */
+    public synchronized Optional<Set<InventoryItem>> findByTitle(String branchId, String titleQuery) {
+        int branch = ordinal(branchId);
+        requireNonNull(titleQuery, "title must be provided");
+        return nonEmpty(streamByPrefix(titleIndex, Book::title, branch, titleQuery)
+                .collect(Collectors.toCollection(HashSet::new)));
+    }
+
+    /**
+     * Single-branch view of this inventory.
+     */
+    public InventoryRepository branch(String branchId) {
+        return new BranchRepository(branchId, ordinal(branchId));
+    }
+
+    private int ordinal(String branchId) {
+        Integer ordinal = ordinals.get(requireNonNull(branchId, "branchId must be provided"));
+        if (ordinal == null) {
+            throw new IllegalArgumentException("unknown branch: " + branchId);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Walks the index's matches when there are no more of them than the branch stocks, otherwise the branch's own
+     * ISBNs, checking each one's field against the prefix.
+     */
+    private Stream<InventoryItem> streamByPrefix(PrefixIndex index, Function<Book, String> field, int branch,
+                                                 String query) {
+        String normalized = LibraryUtils.normalizeLower(query);
+        if (isBlank(normalized)) {
+            return Stream.empty();
+        }
+        Set<String> stocked = isbnsByBranch.get(branch);
+        Stream<BranchStock> candidates;
+        if (index.countWithPrefix(normalized, stocked.size()) <= stocked.size()) {
+            candidates = index.isbnsWithPrefix(normalized).map(stockByIsbn::get).filter(Objects::nonNull);
+        } else {
+            candidates = stocked.stream()
+                    .map(stockByIsbn::get)
+                    .filter(stock -> LibraryUtils.normalizeLower(field.apply(stock.book())).startsWith(normalized));
+        }
+        return candidates.flatMap(stock -> stock.item(branch).stream());
+    }
+
+    private Stream<InventoryItem> streamBranch(int branch) {
+        return isbnsByBranch.get(branch).stream()
+                .map(stockByIsbn::get)
+                .flatMap(stock -> stock.item(branch).stream());
+    }
+
+    private static Optional<Set<InventoryItem>> nonEmpty(Set<InventoryItem> items) {
+        return items.isEmpty() ? empty() : of(items);
+    }
+
+    private final class BranchRepository implements InventoryRepository {
+        private final String branchId;
+        private final int branch;
+
+        private BranchRepository(String branchId, int branch) {
+            this.branchId = branchId;
+            this.branch = branch;
+        }
+
+        @Override
+        public void addBook(Book book, int copies) {
+            MultiBranchInventory.this.addBook(branchId, book, copies);
+        }
+
+        @Override
+        public int addBooks(List<CatalogueEntry> entries, ObjIntConsumer<String> onRejected) {
+            requireNonNull(entries, "entries must be provided");
+            synchronized (MultiBranchInventory.this) {
+                return InventoryRepository.super.addBooks(entries, onRejected);
+            }
+        }
+
+        @Override
+        public Optional<Set<InventoryItem>> findByAuthor(String authorQuery) {
+            return MultiBranchInventory.this.findByAuthor(branchId, authorQuery);
+        }
+
+        @Override
+        public Optional<Set<InventoryItem>> findByTitle(String titleQuery) {
+            return MultiBranchInventory.this.findByTitle(branchId, titleQuery);
+        }
+
+        @Override
+        public Stream<InventoryItem> streamByAuthor(String authorQuery) {
+            requireNonNull(authorQuery, "author must be provided");
+            return streamByPrefix(authorIndex, Book::author, branch, authorQuery);
+        }
+
+        @Override
+        public Stream<InventoryItem> streamByTitle(String titleQuery) {
+            requireNonNull(titleQuery, "title must be provided");
+            return streamByPrefix(titleIndex, Book::title, branch, titleQuery);
+        }
+
+        @Override
+        public Stream<InventoryItem> streamAll() {
+            return streamBranch(branch);
+        }
+
+        @Override
+        public Optional<InventoryItem> findByIsbn(String isbn) {
+            if (isBlank(isbn)) return empty();
+            BranchStock stock = stockByIsbn.get(isbn);
+            return stock == null ? empty() : stock.item(branch);
+        }
+
+        @Override
+        public boolean tryBorrow(String isbn) {
+            return MultiBranchInventory.this.tryBorrow(branchId, isbn);
+        }
+
+        @Override
+        public int totalBorrowedCount() {
+            synchronized (MultiBranchInventory.this) {
+                return borrowedByBranch[branch];
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.library.repository;
+
+import com.example.library.util.LibraryUtils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import static com.example.library.util.LibraryUtils.isBlank;
+
+/**
+ * Case-insensitive prefix index from a normalized value (author, title) to ISBNs.
+ * Backed by concurrent collections: writers are expected to be serialized by the owning repository, while readers
+ * may iterate lazily and see a weakly consistent view.
+ */
+final class PrefixIndex {
+    private final ConcurrentNavigableMap<String, Set<String>> isbnsByValue = new ConcurrentSkipListMap<>();
+
+    void add(String value, String isbn) {
+        String normalized = LibraryUtils.normalizeLower(value);
+        if (isBlank(normalized)) {
+            return;
+        }
+        isbnsByValue.computeIfAbsent(normalized, k -> ConcurrentHashMap.newKeySet()).add(isbn);
+    }
+
+    /**
+     * Lazily streams ISBNs whose value starts with an already normalized prefix. Each ISBN appears at most once.
+     */
+    Stream<String> isbnsWithPrefix(String normalizedPrefix) {
+        if (isBlank(normalizedPrefix)) {
+            return Stream.empty();
+        }
+        return withPrefix(normalizedPrefix).values().stream().flatMap(Set::stream);
+    }
+
+    /**
+     * Number of ISBNs {@link #isbnsWithPrefix(String)} would stream, or any value above {@code limit} once it is
+     * known to exceed it. Adds up set sizes instead of visiting ISBNs.
+     */
+    long countWithPrefix(String normalizedPrefix, long limit) {
+        if (isBlank(normalizedPrefix)) {
+            return 0;
+        }
+        long count = 0;
+        for (Set<String> isbns : withPrefix(normalizedPrefix).values()) {
+            count += isbns.size();
+            if (count > limit) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private ConcurrentNavigableMap<String, Set<String>> withPrefix(String normalizedPrefix) {
+        return isbnsByValue.subMap(normalizedPrefix, true, normalizedPrefix + Character.MAX_VALUE, true);
+    }
+}
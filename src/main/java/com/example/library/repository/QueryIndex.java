@@ -0,0 +1,565 @@
+package com.example.library.repository;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookQuery;
+import com.example.library.domain.BookType;
+import com.example.library.util.LibraryUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Executes {@link BookQuery} trees over sorted id posting lists.
+ * <p>
+ * Items get dense int ids in insertion order, so appending keeps the per-type posting lists sorted. Availability is
+ * not indexed, so borrows never touch this index: it is read from the live item when a candidate is checked. Author
+ * and title prefixes are resolved through the {@link PrefixIndex}es and checked against the normalized values kept
+ * per id. Each AND is driven by its most selective clause. Sizes known in constant time (type; availability and NOT,
+ * bounded by all ids) are read first and cap the counting budget; prefix clauses are then counted side by side with
+ * a budget that doubles until one fits, so estimation costs a small multiple of the smallest clause whatever the
+ * clause order. The order is computed once per AND. Other clauses either skip ahead with galloping search (type)
+ * or check each candidate directly (prefixes, availability, NOT), so the work tracks the driving clause rather than
+ * the largest one. Only a driving prefix clause is materialized into sorted ids.
+ * <p>
+ * Not thread-safe; guarded by the owning repository's monitor.
+ */
+final class QueryIndex {
+    static final int NO_MORE = Integer.MAX_VALUE;
+
+    private final PrefixIndex authorIndex;
+    private final PrefixIndex titleIndex;
+    private final Function<String, InventoryItem> items;
+    private final Map<String, Integer> idByIsbn = new HashMap<>();
+    private final Map<BookType, IntList> idsByType = new EnumMap<>(BookType.class);
+    private Book[] bookById = new Book[64];
+    private String[] authorById = new String[64];
+    private String[] titleById = new String[64];
+    private int size;
+
+    /**
+     * {@code items} looks up the current item for an ISBN, or null; it is read for availability.
+     */
+    QueryIndex(PrefixIndex authorIndex, PrefixIndex titleIndex, Function<String, InventoryItem> items) {
+        this.authorIndex = authorIndex;
+        this.titleIndex = titleIndex;
+        this.items = items;
+        for (BookType type : BookType.values()) {
+            idsByType.put(type, new IntList());
+        }
+    }
+
+    /**
+     * Indexes a new book; ISBNs already indexed are ignored.
+     */
+    void add(Book book) {
+        if (idByIsbn.containsKey(book.isbn())) {
+            return;
+        }
+        if (size == bookById.length) {
+            bookById = Arrays.copyOf(bookById, size * 2);
+            authorById = Arrays.copyOf(authorById, size * 2);
+            titleById = Arrays.copyOf(titleById, size * 2);
+        }
+        int id = size++;
+        bookById[id] = book;
+        authorById[id] = LibraryUtils.normalizeLower(book.author());
+        titleById[id] = LibraryUtils.normalizeLower(book.title());
+        idByIsbn.put(book.isbn(), id);
+        idsByType.get(book.type()).add(id);
+    }
+
+    /**
+     * ISBNs of matching items in id order.
+     */
+    List<String> execute(BookQuery query) {
+        Cursor cursor = plan(query).cursor();
+        List<String> isbns = new ArrayList<>();
+        for (int id = cursor.advance(0); id != NO_MORE; id = cursor.advance(id + 1)) {
+            isbns.add(bookById[id].isbn());
+        }
+        return isbns;
+    }
+
+    private Plan plan(BookQuery query) {
+        if (query instanceof BookQuery.AuthorPrefix author) {
+            return new PrefixPlan(authorIndex, author.prefix(), authorById);
+        }
+        if (query instanceof BookQuery.TitlePrefix title) {
+            return new PrefixPlan(titleIndex, title.prefix(), titleById);
+        }
+        if (query instanceof BookQuery.OfType ofType) {
+            return new TypePlan(ofType.type());
+        }
+        if (query instanceof BookQuery.Available) {
+            return new AvailablePlan();
+        }
+        if (query instanceof BookQuery.And and) {
+            return new AndPlan(and.clauses().stream().map(this::plan).toList());
+        }
+        if (query instanceof BookQuery.Or or) {
+            return new OrPlan(or.clauses().stream().map(this::plan).toList());
+        }
+        if (query instanceof BookQuery.Not not) {
+            return new NotPlan(plan(not.clause()));
+        }
+        throw new IllegalArgumentException("unsupported query: " + query);
+    }
+
+    /**
+     * Forward-only iterator over a sorted id set. Targets passed to {@link #advance(int)} never decrease.
+     */
+    private interface Cursor {
+        /**
+         * Smallest id at or after {@code target}, or {@link #NO_MORE}.
+         */
+        int advance(int target);
+    }
+
+    private interface Plan {
+        /**
+         * Number of matching ids, or any value above {@code budget} once it is known to exceed it.
+         */
+        long cost(long budget);
+
+        /**
+         * Whether {@link #cost(long)} is exact and takes constant time whatever the budget.
+         */
+        boolean knowsCost();
+
+        /**
+         * Whether {@link #cursor()} can skip ahead without materializing or scanning.
+         */
+        boolean skips();
+
+        Cursor cursor();
+
+        boolean contains(int id);
+    }
+
+    /**
+     * The prefix comes normalized from {@link BookQuery}; the values it is checked against were normalized on add.
+     */
+    private final class PrefixPlan implements Plan {
+        private final PrefixIndex index;
+        private final String prefix;
+        private final String[] normalizedById;
+
+        PrefixPlan(PrefixIndex index, String prefix, String[] normalizedById) {
+            this.index = index;
+            this.prefix = prefix;
+            this.normalizedById = normalizedById;
+        }
+
+        @Override
+        public long cost(long budget) {
+            return index.countWithPrefix(prefix, budget);
+        }
+
+        @Override
+        public boolean knowsCost() {
+            return false;
+        }
+
+        @Override
+        public boolean skips() {
+            return false;
+        }
+
+        @Override
+        public Cursor cursor() {
+            int[] ids = index.isbnsWithPrefix(prefix)
+                    .map(idByIsbn::get)
+                    .filter(Objects::nonNull)
+                    .mapToInt(Integer::intValue)
+                    .sorted()
+                    .toArray();
+            return new ArrayCursor(ids, ids.length);
+        }
+
+        @Override
+        public boolean contains(int id) {
+            return !prefix.isEmpty() && normalizedById[id].startsWith(prefix);
+        }
+    }
+
+    private final class TypePlan implements Plan {
+        private final BookType type;
+
+        TypePlan(BookType type) {
+            this.type = type;
+        }
+
+        @Override
+        public long cost(long budget) {
+            return idsByType.get(type).size;
+        }
+
+        @Override
+        public boolean knowsCost() {
+            return true;
+        }
+
+        @Override
+        public boolean skips() {
+            return true;
+        }
+
+        @Override
+        public Cursor cursor() {
+            IntList ids = idsByType.get(type);
+            return new ArrayCursor(ids.values, ids.size);
+        }
+
+        @Override
+        public boolean contains(int id) {
+            return bookById[id].type() == type;
+        }
+    }
+
+    /**
+     * Checks each candidate's live item, so its size is only bounded by all ids. Cheap as a filter; driving with it
+     * scans every id.
+     */
+    private final class AvailablePlan implements Plan {
+        @Override
+        public long cost(long budget) {
+            return size;
+        }
+
+        @Override
+        public boolean knowsCost() {
+            return true;
+        }
+
+        @Override
+        public boolean skips() {
+            return false;
+        }
+
+        @Override
+        public Cursor cursor() {
+            return target -> {
+                for (int id = target; id < size; id++) {
+                    if (contains(id)) {
+                        return id;
+                    }
+                }
+                return NO_MORE;
+            };
+        }
+
+        @Override
+        public boolean contains(int id) {
+            InventoryItem item = items.apply(bookById[id].isbn());
+            return item != null && item.availableCopies() > 0;
+        }
+    }
+
+    /**
+     * Drives with the cheapest clause; skipping clauses leapfrog with it, the rest filter its candidates.
+     */
+    private static final class AndPlan implements Plan {
+        private static final long UNBOUNDED = Long.MAX_VALUE - 1;
+        private static final long FIRST_BUDGET = 64;
+
+        private final List<Plan> clauses;
+        private List<Plan> byCost;
+
+        AndPlan(List<Plan> clauses) {
+            this.clauses = clauses;
+        }
+
+        @Override
+        public long cost(long budget) {
+            long smallest = budget + 1;
+            for (Plan clause : clauses) {
+                if (clause.knowsCost()) {
+                    smallest = Math.min(smallest, clause.cost(budget));
+                }
+            }
+            for (Plan clause : clauses) {
+                if (!clause.knowsCost()) {
+                    smallest = Math.min(smallest, clause.cost(Math.min(budget, smallest)));
+                }
+            }
+            return smallest;
+        }
+
+        @Override
+        public boolean knowsCost() {
+            return clauses.stream().allMatch(Plan::knowsCost);
+        }
+
+        /**
+         * Clauses cheapest first, computed on first use. Known sizes cap the budget; the remaining clauses are
+         * counted in rounds with a doubling budget until the smallest size is known. Clauses that never fit keep
+         * their last estimate, a lower bound above it.
+         */
+        private List<Plan> byCost() {
+            if (byCost != null) {
+                return byCost;
+            }
+            long[] costs = new long[clauses.size()];
+            boolean[] exact = new boolean[costs.length];
+            long smallest = UNBOUNDED;
+            int counted = 0;
+            for (int i = 0; i < costs.length; i++) {
+                if (clauses.get(i).knowsCost()) {
+                    costs[i] = clauses.get(i).cost(UNBOUNDED);
+                    exact[i] = true;
+                    smallest = Math.min(smallest, costs[i]);
+                } else {
+                    counted++;
+                }
+            }
+            // a single counted clause has nothing to race, so it is counted once up to the smallest known size
+            long budget = counted == 1 ? smallest : Math.min(FIRST_BUDGET, smallest);
+            while (counted > 0) {
+                for (int i = 0; i < costs.length; i++) {
+                    if (!exact[i]) {
+                        costs[i] = clauses.get(i).cost(budget);
+                        exact[i] = costs[i] <= budget;
+                        if (exact[i]) {
+                            smallest = Math.min(smallest, costs[i]);
+                        }
+                    }
+                }
+                if (smallest <= budget) {
+                    break;
+                }
+                budget = Math.min(smallest, budget * 2);
+            }
+            Integer[] order = new Integer[costs.length];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, Comparator.comparingLong(i -> costs[i]));
+            byCost = Arrays.stream(order).map(clauses::get).toList();
+            return byCost;
+        }
+
+        @Override
+        public boolean skips() {
+            return byCost().get(0).skips();
+        }
+
+        @Override
+        public Cursor cursor() {
+            List<Plan> ordered = byCost();
+            Cursor driver = ordered.get(0).cursor();
+            List<Cursor> skippers = new ArrayList<>();
+            List<Plan> filters = new ArrayList<>();
+            for (Plan clause : ordered.subList(1, ordered.size())) {
+                if (clause.skips()) {
+                    skippers.add(clause.cursor());
+                } else {
+                    filters.add(clause);
+                }
+            }
+            return target -> {
+                int candidate = driver.advance(target);
+                while (candidate != NO_MORE) {
+                    int next = candidate;
+                    for (Cursor skipper : skippers) {
+                        next = skipper.advance(candidate);
+                        if (next != candidate) {
+                            break;
+                        }
+                    }
+                    if (next != candidate) {
+                        candidate = next == NO_MORE ? NO_MORE : driver.advance(next);
+                        continue;
+                    }
+                    if (matchesFilters(filters, candidate)) {
+                        return candidate;
+                    }
+                    candidate = driver.advance(candidate + 1);
+                }
+                return NO_MORE;
+            };
+        }
+
+        private static boolean matchesFilters(List<Plan> filters, int id) {
+            for (Plan filter : filters) {
+                if (!filter.contains(id)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean contains(int id) {
+            for (Plan clause : clauses) {
+                if (!clause.contains(id)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Union of the clauses' cursors; costs the sum of its clauses.
+     */
+    private static final class OrPlan implements Plan {
+        private final List<Plan> clauses;
+
+        OrPlan(List<Plan> clauses) {
+            this.clauses = clauses;
+        }
+
+        @Override
+        public long cost(long budget) {
+            long total = 0;
+            for (Plan clause : clauses) {
+                total += clause.cost(budget - total);
+                if (total > budget) {
+                    break;
+                }
+            }
+            return total;
+        }
+
+        @Override
+        public boolean knowsCost() {
+            return clauses.stream().allMatch(Plan::knowsCost);
+        }
+
+        @Override
+        public boolean skips() {
+            return clauses.stream().allMatch(Plan::skips);
+        }
+
+        @Override
+        public Cursor cursor() {
+            Cursor[] cursors = clauses.stream().map(Plan::cursor).toArray(Cursor[]::new);
+            int[] heads = new int[cursors.length];
+            Arrays.fill(heads, -1);
+            return target -> {
+                int smallest = NO_MORE;
+                for (int i = 0; i < cursors.length; i++) {
+                    if (heads[i] < target) {
+                        heads[i] = cursors[i].advance(target);
+                    }
+                    smallest = Math.min(smallest, heads[i]);
+                }
+                return smallest;
+            };
+        }
+
+        @Override
+        public boolean contains(int id) {
+            for (Plan clause : clauses) {
+                if (clause.contains(id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Complement within all ids. Cheap as a filter; driving with it scans every id.
+     */
+    private final class NotPlan implements Plan {
+        private final Plan clause;
+
+        NotPlan(Plan clause) {
+            this.clause = clause;
+        }
+
+        @Override
+        public long cost(long budget) {
+            return size;
+        }
+
+        @Override
+        public boolean knowsCost() {
+            return true;
+        }
+
+        @Override
+        public boolean skips() {
+            return false;
+        }
+
+        @Override
+        public Cursor cursor() {
+            return target -> {
+                for (int id = target; id < size; id++) {
+                    if (!clause.contains(id)) {
+                        return id;
+                    }
+                }
+                return NO_MORE;
+            };
+        }
+
+        @Override
+        public boolean contains(int id) {
+            return !clause.contains(id);
+        }
+    }
+
+    /**
+     * Cursor over a sorted array prefix. Skips with galloping search: doubling steps from the current position,
+     * then a binary search within the last step, so skipping {@code d} entries costs {@code O(log d)}.
+     */
+    private static final class ArrayCursor implements Cursor {
+        private final int[] ids;
+        private final int length;
+        private int position;
+
+        ArrayCursor(int[] ids, int length) {
+            this.ids = ids;
+            this.length = length;
+        }
+
+        @Override
+        public int advance(int target) {
+            if (position >= length) {
+                return NO_MORE;
+            }
+            if (ids[position] >= target) {
+                return ids[position];
+            }
+            int step = 1;
+            while (position + step < length && ids[position + step] < target) {
+                step <<= 1;
+            }
+            int low = position + (step >> 1) + 1;
+            int high = Math.min(position + step, length);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            position = low;
+            return position < length ? ids[position] : NO_MORE;
+        }
+    }
+
+    /**
+     * Growable sorted id list; ids are appended in increasing order.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
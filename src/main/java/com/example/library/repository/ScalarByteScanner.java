@@ -0,0 +1,29 @@
+package com.example.library.repository;
+
+/**
+ * Portable scanner: checks the first byte, then the last, then the rest.
+ */
+final class ScalarByteScanner implements ByteScanner {
+    static final ScalarByteScanner INSTANCE = new ScalarByteScanner();
+
+    private ScalarByteScanner() {
+    }
+
+    @Override
+    public int indexOf(byte[] data, int from, int to, byte[] needle) {
+        byte first = needle[0];
+        int lastOffset = needle.length - 1;
+        byte last = needle[lastOffset];
+        for (int i = from, end = to - needle.length; i <= end; i++) {
+            if (data[i] == first && data[i + lastOffset] == last && ByteScanner.matchesAt(data, i, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.library.repository;
+
+/**
+ * Optional indexes of {@link InMemoryInventoryRepository}. Each one speeds up a single query and costs memory, load
+ * time and, for suggestions, borrow time; a query whose index is not enabled falls back to the
+ * {@link InventoryRepository} default scan.
+ */
+public enum SecondaryIndex {
+    /**
+     * Per-prefix most-borrowed rankings for {@code suggest}.
+     */
+    SUGGESTIONS,
+    /**
+     * Packed title and author text for {@code searchContaining}.
+     */
+    SUBSTRINGS,
+    /**
+     * Id posting lists for {@code findByQuery}.
+     */
+    QUERIES
+}
@@ -0,0 +1,340 @@
+package com.example.library.repository;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Immutable on-disk run of inventory items sorted by ISBN.
+ * <p>
+ * Only a bloom filter and every {@value #SPARSE_INTERVAL}th key with its file offset are kept in memory; a lookup
+ * binary-searches the sparse keys and reads a single block with one positional read. Positional reads do not move
+ * the channel position, so lookups are safe from several threads.
+ * <p>
+ * A segment is reference counted so readers can use it without holding the owner's lock: the creator holds the
+ * first reference, readers {@link #retain()} one while reading, and the last {@link #release()} closes and deletes
+ * the file.
+ */
+final class Segment implements Closeable {
+    static final int SPARSE_INTERVAL = 32;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final BloomFilter bloom;
+    private final String[] sparseKeys;
+    private final long[] sparseOffsets;
+    private final long size;
+    private final int count;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private Segment(Path path, BloomFilter bloom, String[] sparseKeys, long[] sparseOffsets, long size, int count)
+            throws IOException {
+        this.path = path;
+        this.bloom = bloom;
+        this.sparseKeys = sparseKeys;
+        this.sparseOffsets = sparseOffsets;
+        this.size = size;
+        this.count = count;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Writes items, which must be sorted by ISBN without duplicates, to a new file at {@code path}.
+     */
+    static Segment write(Path path, Iterator<InventoryItem> sortedItems, int expectedCount) throws IOException {
+        BloomFilter bloom = new BloomFilter(expectedCount);
+        List<String> sparseKeys = new ArrayList<>();
+        List<Long> sparseOffsets = new ArrayList<>();
+        int count = 0;
+        long offset = 0;
+        try (CountingOutput out = new CountingOutput(path)) {
+            while (sortedItems.hasNext()) {
+                InventoryItem item = sortedItems.next();
+                String isbn = item.book().isbn();
+                if (count % SPARSE_INTERVAL == 0) {
+                    sparseKeys.add(isbn);
+                    sparseOffsets.add(offset);
+                }
+                bloom.add(isbn);
+                offset = out.writeItem(item);
+                count++;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return new Segment(path, bloom, sparseKeys.toArray(String[]::new),
+                sparseOffsets.stream().mapToLong(Long::longValue).toArray(), offset, count);
+    }
+
+    /**
+     * Merges segments into a new one at {@code path}. Segments are given newest first; when an ISBN appears in
+     * several, the newest copy wins.
+     */
+    static Segment merge(Path path, List<Segment> newestFirst) throws IOException {
+        int expected = 0;
+        for (Segment segment : newestFirst) {
+            expected += segment.count;
+        }
+        try (MergedItems merged = new MergedItems(newestFirst)) {
+            return write(path, merged, expected);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads segments, given newest first, sequentially side by side and yields each ISBN once, in ISBN order, with
+     * its newest copy. Read failures surface as {@link UncheckedIOException}; close it to release the files.
+     */
+    static MergedItems mergedItems(List<Segment> newestFirst) throws IOException {
+        return new MergedItems(newestFirst);
+    }
+
+    boolean mightContain(String isbn) {
+        return bloom.mightContain(isbn);
+    }
+
+    /**
+     * Returns the item stored for the ISBN, or {@code null}. Reads at most one block from disk.
+     */
+    InventoryItem find(String isbn) throws IOException {
+        int block = Arrays.binarySearch(sparseKeys, isbn);
+        if (block < 0) {
+            block = -block - 2;
+            if (block < 0) {
+                return null;
+            }
+        }
+        long start = sparseOffsets[block];
+        long end = block + 1 < sparseOffsets.length ? sparseOffsets[block + 1] : size;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new EOFException("segment truncated: " + path);
+            }
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+        while (in.available() > 0) {
+            InventoryItem item = readItem(in);
+            int order = item.book().isbn().compareTo(isbn);
+            if (order == 0) {
+                return item;
+            }
+            if (order > 0) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the whole segment sequentially, in ISBN order.
+     */
+    void scan(Consumer<InventoryItem> action) throws IOException {
+        try (Cursor cursor = new Cursor(this, 0)) {
+            while (cursor.advance()) {
+                action.accept(cursor.current);
+            }
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Number of blocks a full {@link #scan(Consumer)} reads, i.e. the cost of that many {@link #find(String)} calls.
+     */
+    int blockCount() {
+        return sparseKeys.length;
+    }
+
+    /**
+     * Takes a reference. Callers must already hold one, directly or through the owner, so the count never climbs
+     * back from zero.
+     */
+    void retain() {
+        if (references.getAndIncrement() <= 0) {
+            throw new IllegalStateException("segment already released: " + path);
+        }
+    }
+
+    /**
+     * Drops a reference; the last one closes and deletes the file.
+     */
+    void release() throws IOException {
+        if (references.decrementAndGet() == 0) {
+            close();
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static InventoryItem readItem(DataInputStream in) throws IOException {
+        Book book = new Book(in.readUTF(), in.readUTF(), in.readUTF(), BookType.valueOf(in.readUTF()));
+        int totalCopies = in.readInt();
+        int borrowedCopies = in.readInt();
+        return new InventoryItem(book, totalCopies, borrowedCopies);
+    }
+
+    /**
+     * K-way merge of segment cursors; on equal ISBNs the youngest cursor wins and the others skip past it.
+     */
+    static final class MergedItems implements Iterator<InventoryItem>, Closeable {
+        private final PriorityQueue<Cursor> heads = new PriorityQueue<>(Comparator
+                .comparing((Cursor cursor) -> cursor.current.book().isbn())
+                .thenComparingInt(cursor -> cursor.age));
+        private final List<Cursor> cursors = new ArrayList<>();
+
+        private MergedItems(List<Segment> newestFirst) throws IOException {
+            try {
+                for (int age = 0; age < newestFirst.size(); age++) {
+                    Cursor cursor = new Cursor(newestFirst.get(age), age);
+                    cursors.add(cursor);
+                    if (cursor.advance()) {
+                        heads.add(cursor);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public InventoryItem next() {
+            Cursor newest = heads.poll();
+            if (newest == null) {
+                throw new NoSuchElementException();
+            }
+            InventoryItem winner = newest.current;
+            String isbn = winner.book().isbn();
+            advance(newest);
+            while (!heads.isEmpty() && heads.peek().current.book().isbn().equals(isbn)) {
+                advance(heads.poll());
+            }
+            return winner;
+        }
+
+        private void advance(Cursor cursor) {
+            try {
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            heads.clear();
+            IOException failure = null;
+            for (Cursor cursor : cursors) {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Sequential reader over a whole segment, used by scans and merges.
+     */
+    private static final class Cursor implements Closeable {
+        private final DataInputStream in;
+        private final int age;
+        private int remaining;
+        private InventoryItem current;
+
+        Cursor(Segment segment, int age) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.path)));
+            this.age = age;
+            this.remaining = segment.count;
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                current = null;
+                return false;
+            }
+            remaining--;
+            current = readItem(in);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class CountingOutput implements Closeable {
+        private final DataOutputStream out;
+        private long written;
+
+        CountingOutput(Path path) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)));
+        }
+
+        /**
+         * Appends the item and returns the offset just past it.
+         */
+        long writeItem(InventoryItem item) throws IOException {
+            int before = out.size();
+            Book book = item.book();
+            out.writeUTF(book.isbn());
+            out.writeUTF(book.title());
+            out.writeUTF(book.author());
+            out.writeUTF(book.type().name());
+            out.writeInt(item.totalCopies());
+            out.writeInt(item.borrowedCopies());
+            written += out.size() - before;
+            return written;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.library.repository;
+
+import com.example.library.util.LibraryUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.example.library.util.LibraryUtils.isBlank;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * "Contains" index over titles and authors. Each item's normalized title and author are appended as UTF-8 to one
+ * contiguous byte array, each followed by a zero byte, and queries scan that array with a {@link ByteScanner}.
+ * UTF-8 is self-synchronizing and queries never contain a zero byte, so a byte match is exactly a substring match
+ * within one field. Large arrays are split at item boundaries and scanned in parallel on the common fork-join pool.
+ * <p>
+ * Append-only: additions are serialized on the index and published as an immutable snapshot, so queries never
+ * lock and see every item added before they started. Callers add each ISBN once.
+ */
+public final class SubstringIndex {
+    /**
+     * Target bytes per parallel task; smaller arrays are scanned on the calling thread.
+     */
+    private static final int SPLIT_BYTES = 256 * 1024;
+
+    private final ByteScanner scanner;
+    private byte[] data = new byte[4096];
+    private int[] starts = new int[64];
+    private String[] isbns = new String[64];
+    private int length;
+    private int count;
+    private volatile Snapshot snapshot = new Snapshot(data, 0, starts, isbns, 0);
+
+    SubstringIndex(ByteScanner scanner) {
+        this.scanner = requireNonNull(scanner, "scanner must be provided");
+    }
+
+    /**
+     * Index scanned with the Vector API when available, otherwise scalar.
+     */
+    public static SubstringIndex vectorized() {
+        return new SubstringIndex(ByteScanner.preferred());
+    }
+
+    public static SubstringIndex scalar() {
+        return new SubstringIndex(ByteScanner.scalar());
+    }
+
+    /**
+     * Adds an item whose ISBN is not indexed yet; adding one twice reports it twice.
+     */
+    public synchronized void add(String isbn, String title, String author) {
+        byte[] titleBytes = LibraryUtils.normalizeLower(title).getBytes(StandardCharsets.UTF_8);
+        byte[] authorBytes = LibraryUtils.normalizeLower(author).getBytes(StandardCharsets.UTF_8);
+        int recordLength = titleBytes.length + authorBytes.length + 2;
+        if (length + recordLength > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + recordLength));
+        }
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            isbns = Arrays.copyOf(isbns, count * 2);
+        }
+        starts[count] = length;
+        isbns[count] = isbn;
+        System.arraycopy(titleBytes, 0, data, length, titleBytes.length);
+        length += titleBytes.length;
+        data[length++] = 0;
+        System.arraycopy(authorBytes, 0, data, length, authorBytes.length);
+        length += authorBytes.length;
+        data[length++] = 0;
+        count++;
+        snapshot = new Snapshot(data, length, starts, isbns, count);
+    }
+
+    /**
+     * ISBNs of items whose title or author contains the query (case-insensitive), in insertion order, each once.
+     */
+    public List<String> isbnsContaining(String query) {
+        requireNonNull(query, "query must be provided");
+        String normalized = LibraryUtils.normalizeLower(query);
+        if (isBlank(normalized) || normalized.indexOf('\0') >= 0) {
+            return List.of();
+        }
+        byte[] needle = normalized.getBytes(StandardCharsets.UTF_8);
+        Snapshot current = snapshot;
+        int tasks = Math.max(1, Math.min(current.count, current.length / SPLIT_BYTES));
+        if (tasks == 1) {
+            return scan(current, needle, 0, current.count);
+        }
+        return IntStream.range(0, tasks)
+                .parallel()
+                .mapToObj(task -> scan(current, needle,
+                        (int) ((long) current.count * task / tasks),
+                        (int) ((long) current.count * (task + 1) / tasks)))
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Bytes a query scans.
+     */
+    public long sizeBytes() {
+        return snapshot.length;
+    }
+
+    public int size() {
+        return snapshot.count;
+    }
+
+    /**
+     * {@code scalar} or {@code vector-<bits>}.
+     */
+    public String scannerName() {
+        return scanner.name();
+    }
+
+    /**
+     * Scans items {@code [fromItem, toItem)}. After a hit, resumes at the next item so each ISBN is reported once.
+     */
+    private List<String> scan(Snapshot current, byte[] needle, int fromItem, int toItem) {
+        List<String> matches = new ArrayList<>();
+        if (fromItem >= toItem) {
+            return matches;
+        }
+        int end = toItem < current.count ? current.starts[toItem] : current.length;
+        int position = current.starts[fromItem];
+        int hit;
+        while ((hit = scanner.indexOf(current.data, position, end, needle)) >= 0) {
+            int item = Arrays.binarySearch(current.starts, fromItem, toItem, hit);
+            if (item < 0) {
+                item = -item - 2;
+            }
+            matches.add(current.isbns[item]);
+            if (item + 1 >= toItem) {
+                break;
+            }
+            position = current.starts[item + 1];
+        }
+        return matches;
+    }
+
+    private record Snapshot(byte[] data, int length, int[] starts, String[] isbns, int count) {
+    }
+}
@@ -0,0 +1,483 @@
+package com.example.library.repository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Character trie over normalized keys where every node keeps candidates for the top entries of its subtree, ranked
+ * by score (descending, ties by ISBN). A lookup walks the prefix and ranks the node's list, so its cost depends on
+ * the prefix length and the list size, never on how many keys match.
+ * <p>
+ * Each ISBN has one entry holding its latest score, shared by the lists of all its keys, and scores may only grow.
+ * A list holds up to twice the capacity and always contains the top {@code capacity} entries of its subtree, so a
+ * rising score never has to move an entry within or out of a list: lookups rank lists by current scores. An
+ * outsider only has to enter a list once it overtakes the list's cutoff, the entry at rank {@code capacity}; the
+ * slack below the cutoff means scores that rise together rarely get there. The lowest node on a key's path whose
+ * list lacks the entry, its frontier, is remembered per key, and {@link #recordScore(String, long)} only queues
+ * scores that overtake a frontier's cutoff. Lists above a frontier lacking the entry have cutoffs at least as high,
+ * since their subtrees are supersets. Queued entries climb from their frontier until a list they lack rejects them,
+ * and a full list that admits an entry drops its lowest one, whose frontier moves down to that node.
+ * <p>
+ * Runs without branches are compressed into one node, and children are kept in sorted parallel arrays rather than
+ * maps, so most of a key's characters cost no node at all. Keys are indexed up to {@code maxDepth} characters;
+ * longer prefixes are reported as unsupported.
+ * <p>
+ * Not thread-safe; callers synchronize. {@link #recordScore(String, long)} is the exception: it may run concurrently
+ * with {@link #applyQueued()} and {@link #top(String, int)}, but not with itself or {@link #add}. {@link #queued()}
+ * may run at any time.
+ */
+final class SuggestionTrie {
+    static final int DEFAULT_CAPACITY = 10;
+    static final int DEFAULT_MAX_DEPTH = 24;
+    private static final Placement[] NO_PLACEMENTS = new Placement[0];
+
+    private final int capacity;
+    /**
+     * Entries a list holds before it drops the lowest to admit another.
+     */
+    private final int room;
+    private final int maxDepth;
+    private final Node root = new Node();
+    private final Map<String, Entry> entriesByIsbn = new ConcurrentHashMap<>();
+    /**
+     * Entries whose recorded scores may change a list, linked through {@link Entry#nextQueued}.
+     */
+    private final AtomicReference<Entry> queue = new AtomicReference<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    /**
+     * Entries dropped from a list during the current call. They climb again once it is done, in case a score recorded
+     * concurrently was checked against their old frontier.
+     */
+    private final Queue<Entry> displaced = new ArrayDeque<>();
+
+    SuggestionTrie() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_DEPTH);
+    }
+
+    SuggestionTrie(int capacity, int maxDepth) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("maxDepth must be positive");
+        }
+        this.capacity = capacity;
+        this.room = capacity * 2;
+        this.maxDepth = maxDepth;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    boolean supports(String normalizedPrefix) {
+        return normalizedPrefix.length() <= maxDepth;
+    }
+
+    /**
+     * Indexes a key for the ISBN with its current score, creating and splitting nodes as needed. Adding the same
+     * key for the same ISBN again only records the score.
+     */
+    void add(String normalizedKey, String isbn, long score) {
+        int depth = Math.min(normalizedKey.length(), maxDepth);
+        if (depth == 0) {
+            return;
+        }
+        Node node = root;
+        int position = 0;
+        while (position < depth) {
+            int index = node.childIndex(normalizedKey.charAt(position));
+            if (index < 0) {
+                Node child = new Node(normalizedKey.substring(position, depth).toCharArray());
+                node.insertChild(-index - 1, child);
+                node = child;
+            } else {
+                Node child = node.children[index];
+                int matched = child.matchLength(normalizedKey, position, depth);
+                node = matched < child.label.length ? node.splitChild(index, matched) : child;
+            }
+            position += node.label.length;
+        }
+        Entry entry = entriesByIsbn.computeIfAbsent(isbn, Entry::new);
+        entry.score = score;
+        Placement placement = entry.placementOf(node);
+        if (placement == null) {
+            placement = new Placement(node);
+            entry.placements = append(entry.placements, placement);
+        }
+        climb(entry, placement);
+        settleDisplaced();
+    }
+
+    /**
+     * Records a new score for an indexed ISBN and queues it for {@link #applyQueued()} if it overtakes the cutoff of
+     * one of the ISBN's frontiers; conservative while lists change concurrently. Unindexed ISBNs are ignored,
+     * since {@link #add} takes their score later.
+     */
+    void recordScore(String isbn, long score) {
+        Entry entry = entriesByIsbn.get(isbn);
+        if (entry == null) {
+            return;
+        }
+        entry.score = score;
+        if (entry.queued) {
+            return;
+        }
+        for (Placement placement : entry.placements) {
+            Node frontier = placement.frontier;
+            if (frontier != null && frontier.cutoff.overtakenBy(score, isbn)) {
+                entry.queued = true;
+                Entry next;
+                do {
+                    next = queue.get();
+                    entry.nextQueued = next;
+                } while (!queue.compareAndSet(next, entry));
+                queuedCount.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return number of queued entries, possibly stale
+     */
+    int queued() {
+        return queuedCount.get();
+    }
+
+    /**
+     * Offers the recorded score of every queued entry along each of its keys, from its frontier up to the first list
+     * that lacks it and rejects it. An entry is dequeued before its score is read, so a score recorded concurrently is
+     * either applied now or queued again.
+     */
+    void applyQueued() {
+        Entry entry = queue.getAndSet(null);
+        while (entry != null) {
+            Entry next = entry.nextQueued;
+            entry.nextQueued = null;
+            entry.queued = false;
+            queuedCount.decrementAndGet();
+            climbAll(entry);
+            entry = next;
+        }
+        settleDisplaced();
+    }
+
+    /**
+     * @return up to {@code limit} ISBNs, best first by current score; callers check {@link #supports(String)} first
+     * and ask for at most {@link #capacity()}
+     */
+    List<String> top(String normalizedPrefix, int limit) {
+        Node node = root;
+        int position = 0;
+        while (position < normalizedPrefix.length()) {
+            int index = node.childIndex(normalizedPrefix.charAt(position));
+            if (index < 0) {
+                return List.of();
+            }
+            node = node.children[index];
+            int matched = node.matchLength(normalizedPrefix, position, normalizedPrefix.length());
+            if (matched < node.label.length && position + matched < normalizedPrefix.length()) {
+                return List.of();
+            }
+            position += matched;
+        }
+        int size = node.size;
+        Entry[] entries = Arrays.copyOf(node.entries, size);
+        long[] current = new long[size];
+        for (int i = 0; i < size; i++) {
+            current[i] = entries[i].score;
+        }
+        sort(entries, current, size);
+        List<String> ranked = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < Math.min(limit, size); i++) {
+            ranked.add(entries[i].isbn);
+        }
+        return ranked;
+    }
+
+    private void climbAll(Entry entry) {
+        for (Placement placement : entry.placements) {
+            climb(entry, placement);
+        }
+    }
+
+    /**
+     * Moves the entry up from its frontier while lists hold or admit it. The score is read again after a frontier is
+     * published, so a concurrent {@link #recordScore} either sees the new frontier or its score is applied here.
+     */
+    private void climb(Entry entry, Placement placement) {
+        Node node = placement.frontier;
+        while (node != null) {
+            if (offer(node, entry)) {
+                node = node.parent == root ? null : node.parent;
+                continue;
+            }
+            placement.frontier = node;
+            if (!node.cutoff.overtakenBy(entry.score, entry.isbn)) {
+                return;
+            }
+        }
+        placement.frontier = null;
+    }
+
+    /**
+     * @return whether the entry is in the node's list afterwards
+     */
+    private boolean offer(Node node, Entry entry) {
+        if (node.indexOf(entry) >= 0) {
+            return true;
+        }
+        if (node.size < room) {
+            node.append(entry, room);
+            if (node.size == room) {
+                node.refresh(capacity);
+            }
+            return true;
+        }
+        long score = entry.score;
+        if (!node.cutoff.overtakenBy(score, entry.isbn)) {
+            return false;
+        }
+        node.refresh(capacity);
+        if (!node.cutoff.overtakenBy(score, entry.isbn)) {
+            return false;
+        }
+        lowerFrontiers(node.replaceLowest(entry, score, capacity), node);
+        return true;
+    }
+
+    /**
+     * Makes {@code node}, which just dropped the entry, the frontier of every key whose path below the old frontier
+     * passes through it.
+     */
+    private void lowerFrontiers(Entry entry, Node node) {
+        for (Placement placement : entry.placements) {
+            for (Node held = placement.deepest; held != root && held != placement.frontier; held = held.parent) {
+                if (held == node) {
+                    placement.frontier = node;
+                    break;
+                }
+            }
+        }
+        displaced.add(entry);
+    }
+
+    private void settleDisplaced() {
+        Entry entry;
+        while ((entry = displaced.poll()) != null) {
+            climbAll(entry);
+        }
+    }
+
+    private static Placement[] append(Placement[] placements, Placement placement) {
+        Placement[] appended = Arrays.copyOf(placements, placements.length + 1);
+        appended[placements.length] = placement;
+        return appended;
+    }
+
+    private static void sort(Entry[] entries, long[] scores, int size) {
+        for (int i = 1; i < size; i++) {
+            for (int j = i; j > 0 && ranksBefore(scores[j], entries[j].isbn, scores[j - 1], entries[j - 1].isbn); j--) {
+                swap(entries, scores, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(Entry[] entries, long[] scores, int a, int b) {
+        Entry entry = entries[a];
+        entries[a] = entries[b];
+        entries[b] = entry;
+        long score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    private static boolean ranksBefore(long score, String isbn, long otherScore, String otherIsbn) {
+        return score > otherScore || (score == otherScore && isbn.compareTo(otherIsbn) < 0);
+    }
+
+    /**
+     * An indexed ISBN with its latest recorded score and one placement per key.
+     */
+    private static final class Entry {
+        private final String isbn;
+        private volatile long score;
+        private Placement[] placements = NO_PLACEMENTS;
+        private volatile boolean queued;
+        private Entry nextQueued;
+
+        private Entry(String isbn) {
+            this.isbn = isbn;
+        }
+
+        private Placement placementOf(Node deepest) {
+            for (Placement placement : placements) {
+                if (placement.deepest == deepest) {
+                    return placement;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * One indexed key of an ISBN: the node where the key ends, and the lowest node on its path whose list lacks the
+     * ISBN, or {@code null} when every list up to the root holds it.
+     */
+    private static final class Placement {
+        private final Node deepest;
+        private volatile Node frontier;
+
+        private Placement(Node deepest) {
+            this.deepest = deepest;
+            this.frontier = deepest;
+        }
+    }
+
+    /**
+     * Entry at rank {@code capacity} of a full list, with the score it had when the list was last ranked; current
+     * scores are never lower, so an outsider that does not overtake it need not enter the list.
+     */
+    private record Cutoff(long score, String isbn) {
+        boolean overtakenBy(long otherScore, String otherIsbn) {
+            return ranksBefore(otherScore, otherIsbn, score, isbn);
+        }
+    }
+
+    /**
+     * A run of characters with no branch, so every prefix ending inside {@code label} shares this node's subtree
+     * and ranking. Children are ordered by the first character of their labels. A list with room holds its whole
+     * subtree in no particular order; a full list is ranked by the scores in {@code scores}, and its {@code cutoff}
+     * is published for readers without the lock.
+     */
+    private static final class Node {
+        private static final char[] NO_CHARS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+        private static final long[] NO_SCORES = new long[0];
+
+        private char[] label;
+        private Node parent;
+        private char[] childKeys = NO_CHARS;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+        private Entry[] entries = NO_ENTRIES;
+        private long[] scores = NO_SCORES;
+        private int size;
+        private volatile Cutoff cutoff;
+
+        private Node() {
+            this(NO_CHARS);
+        }
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+
+        /**
+         * @return index of the child starting with {@code key}, or {@code -(insertion point) - 1}
+         */
+        private int childIndex(char key) {
+            return Arrays.binarySearch(childKeys, 0, childCount, key);
+        }
+
+        private void insertChild(int insertion, Node child) {
+            if (childCount == childKeys.length) {
+                int grown = Math.max(2, childCount * 2);
+                childKeys = Arrays.copyOf(childKeys, grown);
+                children = Arrays.copyOf(children, grown);
+            }
+            System.arraycopy(childKeys, insertion, childKeys, insertion + 1, childCount - insertion);
+            System.arraycopy(children, insertion, children, insertion + 1, childCount - insertion);
+            childKeys[insertion] = child.label[0];
+            children[insertion] = child;
+            child.parent = this;
+            childCount++;
+        }
+
+        /**
+         * Replaces a child by a new node holding the first {@code length} characters of its label and its entries.
+         * The child keeps being the frontier of keys below it, since both lists hold the same entries.
+         */
+        private Node splitChild(int index, int length) {
+            Node child = children[index];
+            Node upper = new Node(Arrays.copyOf(child.label, length));
+            upper.entries = child.entries.clone();
+            upper.scores = child.scores.clone();
+            upper.size = child.size;
+            upper.cutoff = child.cutoff;
+            upper.parent = this;
+            child.label = Arrays.copyOfRange(child.label, length, child.label.length);
+            upper.insertChild(0, child);
+            children[index] = upper;
+            return upper;
+        }
+
+        /**
+         * @return number of leading label characters equal to {@code key[from, to)}
+         */
+        private int matchLength(String key, int from, int to) {
+            int length = Math.min(label.length, to - from);
+            for (int i = 0; i < length; i++) {
+                if (label[i] != key.charAt(from + i)) {
+                    return i;
+                }
+            }
+            return length;
+        }
+
+        private int indexOf(Entry entry) {
+            for (int i = 0; i < size; i++) {
+                if (entries[i] == entry) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void append(Entry entry, int room) {
+            if (size == entries.length) {
+                int grown = Math.min(room, Math.max(2, size * 2));
+                entries = Arrays.copyOf(entries, grown);
+                scores = Arrays.copyOf(scores, grown);
+            }
+            entries[size++] = entry;
+        }
+
+        /**
+         * Re-reads every entry's score, ranks the full list and publishes its cutoff.
+         */
+        private void refresh(int capacity) {
+            for (int i = 0; i < size; i++) {
+                scores[i] = entries[i].score;
+            }
+            sort(entries, scores, size);
+            cutoff = new Cutoff(scores[capacity - 1], entries[capacity - 1].isbn);
+        }
+
+        /**
+         * @return the lowest entry of the ranked full list, dropped for the new one
+         */
+        private Entry replaceLowest(Entry entry, long score, int capacity) {
+            int position = size - 1;
+            Entry evicted = entries[position];
+            entries[position] = entry;
+            scores[position] = score;
+            while (position > 0 && ranksBefore(scores[position], entries[position].isbn,
+                    scores[position - 1], entries[position - 1].isbn)) {
+                swap(entries, scores, position, position - 1);
+                position--;
+            }
+            cutoff = new Cutoff(scores[capacity - 1], entries[capacity - 1].isbn);
+            return evicted;
+        }
+    }
+}
@@ -0,0 +1,692 @@
+package com.example.library.repository;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.CatalogueEntry;
+import com.example.library.util.LibraryUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.example.library.domain.BookType.REFERENCE;
+import static com.example.library.util.LibraryUtils.isBlank;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+
+/**
+ * Thread-safe repository that keeps recently used items in memory and spills the rest to disk, LSM-style.
+ * Mutations and point lookups are synchronized on the repository.
+ * <p>
+ * Hot items live in a map kept in least-recently-used order and bounded by an estimated heap budget. When an
+ * operation leaves the budget exceeded, the least recently used items are evicted down to three quarters of it;
+ * those changed since they were last loaded are first written to a new immutable {@link Segment} sorted by ISBN,
+ * and only evicted once the write succeeded. If it fails, the operation has still been applied, every item stays
+ * in memory, and the {@link UncheckedIOException} propagates; the next operation retries the spill.
+ * <p>
+ * Lookups check the in-memory ISBN set first, so unknown ISBNs never touch a segment. Known cold ISBNs are looked
+ * up in segments newest first, reading only segments whose bloom filter admits the ISBN. Items read from disk are
+ * promoted to the hot map. Once there are more than {@code maxSegments} segments, some of them are merged in the
+ * background and swapped in under the monitor, one merge after another until the count is back within the limit.
+ * Merging is size-tiered: segments fall into tiers that grow by a factor of {@value #TIER_WIDTH}, and the newest run
+ * of {@value #TIER_WIDTH} or more adjacent segments in one tier is merged, so each item is rewritten about once per
+ * tier rather than on every compaction.
+ * <p>
+ * The heap budget covers hot item values only. The ISBN set and the author/title indexes stay in memory for every
+ * item, hot or cold, so their footprint grows with the catalogue, not the budget; the repository saves the heap of
+ * cold records (book, item and title/author strings), not of their keys. {@link #hotBytes()} reports the estimate
+ * the budget is checked against.
+ * <p>
+ * Prefix queries and streams read items without promoting them, so scans do not flush the working set. They take
+ * the monitor only to read hot items and to snapshot the segment list, and read segments outside it.
+ * {@link #streamAll()} reads every segment sequentially side by side instead of looking cold items up one by one,
+ * and must be closed, or run to the end, to release the segments it reads. Segments are immutable and reference
+ * counted, so a compaction that replaces them defers deletion until running readers are done. Segments are spill
+ * files, not durable storage: they live in a private directory that is deleted by {@link #close()}.
+ */
+public class TieredInventoryRepository implements InventoryRepository, AutoCloseable {
+    /**
+     * Rough per-item heap cost on top of the string characters: map entry, record, book and string headers.
+     */
+    static final long ITEM_OVERHEAD_BYTES = 200;
+    private static final int DEFAULT_MAX_SEGMENTS = 8;
+    /**
+     * Segments per size tier that start a merge, and the size ratio between tiers.
+     */
+    static final int TIER_WIDTH = 4;
+
+    private final Path directory;
+    private final long heapBudgetBytes;
+    private final int maxSegments;
+    private final ExecutorService compactor;
+    /**
+     * Least recently used first; {@link #load(String, boolean)} re-inserts items to mark them as used.
+     */
+    private final Map<String, InventoryItem> hot = new LinkedHashMap<>();
+    /**
+     * ISBNs of hot items that differ from their newest on-disk copy. Clean items are dropped on eviction.
+     */
+    private final Set<String> dirty = new HashSet<>();
+    private final Set<String> isbns = ConcurrentHashMap.newKeySet();
+    private final PrefixIndex authorIndex = new PrefixIndex();
+    private final PrefixIndex titleIndex = new PrefixIndex();
+    /**
+     * Newest first. Replaced, never mutated, so a compaction can snapshot it.
+     */
+    private List<Segment> segments = List.of();
+    private long hotBytes;
+    private int totalBorrowed;
+    private long nextSegmentId;
+    private final LongAdder diskReads = new LongAdder();
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    /**
+     * Written under the monitor; read without it by readers releasing segments after {@link #close()}.
+     */
+    private volatile boolean closed;
+
+    public TieredInventoryRepository(Path directory, long heapBudgetBytes) {
+        this(directory, heapBudgetBytes, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * @param directory       parent of the private segment directory
+     * @param heapBudgetBytes estimated heap the hot item values may use; keys and indexes are not counted
+     * @param maxSegments     segment count above which a background compaction starts
+     */
+    public TieredInventoryRepository(Path directory, long heapBudgetBytes, int maxSegments) {
+        requireNonNull(directory, "directory must be provided");
+        if (heapBudgetBytes <= 0) {
+            throw new IllegalArgumentException("heapBudgetBytes must be positive");
+        }
+        if (maxSegments <= 0) {
+            throw new IllegalArgumentException("maxSegments must be positive");
+        }
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.maxSegments = maxSegments;
+        try {
+            this.directory = Files.createTempDirectory(Files.createDirectories(directory), "segments-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.compactor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "inventory-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public synchronized void addBook(Book book, int copies) {
+        requireNonNull(book, "book must be provided");
+        if (copies <= 0) {
+            throw new IllegalArgumentException("copies must be positive");
+        }
+        String isbn = LibraryUtils.requireNonBlank(book.isbn(), "isbn");
+        requireOpen();
+
+        InventoryItem existing = load(isbn, true);
+        if (existing == null) {
+            putHot(isbn, InventoryItem.create(book, copies));
+            isbns.add(isbn);
+            authorIndex.add(book.author(), isbn);
+            titleIndex.add(book.title(), isbn);
+        } else if (!existing.book().equals(book)) {
+            evictIfOverBudget();
+            throw new IllegalArgumentException("ISBN already exists with different book details");
+        } else {
+            putHot(isbn, existing.addCopies(copies));
+        }
+        evictIfOverBudget();
+    }
+
+    /**
+     * Applies the whole batch under a single lock acquisition.
+     */
+    @Override
+    public synchronized int addBooks(List<CatalogueEntry> entries, ObjIntConsumer<String> onRejected) {
+        requireNonNull(entries, "entries must be provided");
+        return InventoryRepository.super.addBooks(entries, onRejected);
+    }
+
+    @Override
+    public synchronized Optional<InventoryItem> findByIsbn(String isbn) {
+        if (isBlank(isbn) || closed) return empty();
+        InventoryItem item = load(isbn, true);
+        evictIfOverBudget();
+        return Optional.ofNullable(item);
+    }
+
+    @Override
+    public synchronized boolean tryBorrow(String isbn) {
+        if (isBlank(isbn) || closed) return false;
+        InventoryItem item = load(isbn, true);
+        boolean borrowed = item != null && item.book().type() != REFERENCE && item.borrowOne()
+                .map(updated -> {
+                    putHot(isbn, updated);
+                    totalBorrowed++;
+                    return true;
+                })
+                .orElse(false);
+        evictIfOverBudget();
+        return borrowed;
+    }
+
+    @Override
+    public Optional<Set<InventoryItem>> findByAuthor(String author) {
+        requireNonNull(author, "author must be provided");
+        String normalizedAuthor = LibraryUtils.normalizeLower(author);
+        if (isBlank(normalizedAuthor)) {
+            return empty();
+        }
+        Set<InventoryItem> items = findItemsByPrefix(authorIndex, normalizedAuthor);
+        return items.isEmpty() ? empty() : of(items);
+    }
+
+    @Override
+    public Optional<Set<InventoryItem>> findByTitle(String titleQuery) {
+        requireNonNull(titleQuery, "title must be provided");
+        String normalizedTitle = LibraryUtils.normalizeLower(titleQuery);
+        if (isBlank(normalizedTitle)) {
+            return empty();
+        }
+        Set<InventoryItem> items = findItemsByPrefix(titleIndex, normalizedTitle);
+        return items.isEmpty() ? empty() : of(items);
+    }
+
+    @Override
+    public Stream<InventoryItem> streamByAuthor(String authorQuery) {
+        requireNonNull(authorQuery, "author must be provided");
+        return streamByIsbn(authorIndex.isbnsWithPrefix(LibraryUtils.normalizeLower(authorQuery)));
+    }
+
+    @Override
+    public Stream<InventoryItem> streamByTitle(String titleQuery) {
+        requireNonNull(titleQuery, "title must be provided");
+        return streamByIsbn(titleIndex.isbnsWithPrefix(LibraryUtils.normalizeLower(titleQuery)));
+    }
+
+    /**
+     * Streams a snapshot of the hot items, then merges the segments in ISBN order, skipping ISBNs that are hot.
+     */
+    @Override
+    public Stream<InventoryItem> streamAll() {
+        Map<String, InventoryItem> hotItems;
+        List<Segment> snapshot;
+        synchronized (this) {
+            if (closed) {
+                return Stream.empty();
+            }
+            hotItems = new HashMap<>(hot);
+            snapshot = retainSegments();
+        }
+        Segment.MergedItems merged;
+        try {
+            merged = Segment.mergedItems(snapshot);
+        } catch (IOException e) {
+            releaseSegments(snapshot);
+            throw new UncheckedIOException(e);
+        }
+        for (Segment segment : snapshot) {
+            diskReads.add(segment.blockCount());
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                try {
+                    merged.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    releaseSegments(snapshot);
+                }
+            }
+        };
+        Iterator<InventoryItem> cold = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                if (merged.hasNext()) {
+                    return true;
+                }
+                release.run();
+                return false;
+            }
+
+            @Override
+            public InventoryItem next() {
+                return merged.next();
+            }
+        };
+        Stream<InventoryItem> coldItems = StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(cold, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .filter(item -> !hotItems.containsKey(item.book().isbn()))
+                .onClose(release);
+        return Stream.concat(hotItems.values().stream(), coldItems);
+    }
+
+    @Override
+    public synchronized int totalBorrowedCount() {
+        return totalBorrowed;
+    }
+
+    /**
+     * Merges all current segments into one on the background thread. Returns the running compaction if there is
+     * one; segments flushed while it runs are kept and merged next time.
+     */
+    public synchronized CompletableFuture<Void> compact() {
+        if (!compaction.isDone() || segments.size() < 2 || closed) {
+            return compaction;
+        }
+        return startCompaction(segments);
+    }
+
+    /**
+     * Merges adjacent segments from the current list on the background thread. Callers hold the monitor and have
+     * checked that no compaction is running.
+     */
+    private CompletableFuture<Void> startCompaction(List<Segment> inputs) {
+        for (Segment segment : inputs) {
+            segment.retain();
+        }
+        Path target = nextSegmentPath();
+        try {
+            compaction = CompletableFuture.runAsync(() -> mergeSegments(inputs, target), compactor);
+        } catch (RejectedExecutionException e) {
+            // closing: the compactor takes no more work
+            releaseSegments(inputs);
+        }
+        return compaction;
+    }
+
+    /**
+     * The newest run of at least {@value #TIER_WIDTH} adjacent segments in the same size tier. If there is none, the
+     * run of adjacent segments with the fewest items among those long enough to bring the count back to
+     * {@code maxSegments}.
+     */
+    private List<Segment> segmentsToMerge() {
+        int runStart = 0;
+        for (int i = 1; i <= segments.size(); i++) {
+            if (i == segments.size() || tier(segments.get(i)) != tier(segments.get(runStart))) {
+                if (i - runStart >= TIER_WIDTH) {
+                    return List.copyOf(segments.subList(runStart, i));
+                }
+                runStart = i;
+            }
+        }
+        int width = segments.size() - maxSegments + 1;
+        long items = 0;
+        for (int i = 0; i < width; i++) {
+            items += segments.get(i).count();
+        }
+        int best = 0;
+        long fewest = items;
+        for (int start = 1; start + width <= segments.size(); start++) {
+            items += segments.get(start + width - 1).count() - segments.get(start - 1).count();
+            if (items < fewest) {
+                fewest = items;
+                best = start;
+            }
+        }
+        return List.copyOf(segments.subList(best, best + width));
+    }
+
+    private static int tier(Segment segment) {
+        int tier = 0;
+        for (long size = Math.max(segment.count(), 1); size >= TIER_WIDTH; size /= TIER_WIDTH) {
+            tier++;
+        }
+        return tier;
+    }
+
+    /**
+     * The latest compaction, started by {@link #compact()} or in the background; completed if none has run.
+     */
+    synchronized CompletableFuture<Void> latestCompaction() {
+        return compaction;
+    }
+
+    public synchronized int hotItemCount() {
+        return hot.size();
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Estimated heap of the hot item values, the figure the heap budget bounds.
+     */
+    public synchronized long hotBytes() {
+        return hotBytes;
+    }
+
+    /**
+     * Number of segment blocks read from disk by lookups and scans since creation.
+     */
+    public long diskReads() {
+        return diskReads.sum();
+    }
+
+    /**
+     * Waits for a running compaction, then deletes all segments. The repository is empty afterwards and rejects
+     * further additions.
+     */
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            hot.clear();
+            dirty.clear();
+            hotBytes = 0;
+            List<Segment> owned = segments;
+            segments = List.of();
+            releaseSegments(owned);
+        }
+    }
+
+    private Stream<InventoryItem> streamByIsbn(Stream<String> isbnStream) {
+        return isbnStream.map(this::peek).filter(Objects::nonNull);
+    }
+
+    /**
+     * Reads the newest copy without promoting it; a cold copy is read outside the monitor.
+     */
+    private InventoryItem peek(String isbn) {
+        List<Segment> snapshot;
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+            InventoryItem item = hot.get(isbn);
+            if (item != null || !isbns.contains(isbn)) {
+                return item;
+            }
+            snapshot = retainSegments();
+        }
+        try {
+            return findInSegments(snapshot, isbn);
+        } finally {
+            releaseSegments(snapshot);
+        }
+    }
+
+    /**
+     * Collects hot matches and snapshots the segments under the monitor, then reads cold matches outside it,
+     * segment by segment, newest first, so each segment is read at most once per query.
+     */
+    private Set<InventoryItem> findItemsByPrefix(PrefixIndex index, String normalized) {
+        Set<InventoryItem> items = new HashSet<>();
+        Set<String> cold = new HashSet<>();
+        List<Segment> snapshot;
+        synchronized (this) {
+            if (closed) {
+                return items;
+            }
+            index.isbnsWithPrefix(normalized).forEach(isbn -> {
+                InventoryItem item = hot.get(isbn);
+                if (item != null) {
+                    items.add(item);
+                } else if (isbns.contains(isbn)) {
+                    cold.add(isbn);
+                }
+            });
+            if (cold.isEmpty()) {
+                return items;
+            }
+            snapshot = retainSegments();
+        }
+        try {
+            for (Segment segment : snapshot) {
+                if (cold.isEmpty()) {
+                    break;
+                }
+                readColdItems(segment, cold, items);
+            }
+        } finally {
+            releaseSegments(snapshot);
+        }
+        return items;
+    }
+
+    /**
+     * Moves the ISBNs found in the segment from {@code remaining} to {@code found}. Scans the segment sequentially
+     * when that reads fewer blocks than one lookup per ISBN.
+     */
+    private void readColdItems(Segment segment, Set<String> remaining, Set<InventoryItem> found) {
+        try {
+            if (remaining.size() > segment.blockCount()) {
+                diskReads.add(segment.blockCount());
+                segment.scan(item -> {
+                    if (remaining.remove(item.book().isbn())) {
+                        found.add(item);
+                    }
+                });
+                return;
+            }
+            for (Iterator<String> pending = remaining.iterator(); pending.hasNext(); ) {
+                String isbn = pending.next();
+                if (!segment.mightContain(isbn)) {
+                    continue;
+                }
+                diskReads.increment();
+                InventoryItem item = segment.find(isbn);
+                if (item != null) {
+                    found.add(item);
+                    pending.remove();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the newest copy of the item or {@code null}, optionally promoting a disk copy to the hot map. Callers
+     * evict once their operation is complete.
+     */
+    private InventoryItem load(String isbn, boolean promote) {
+        InventoryItem item = promote ? hot.remove(isbn) : hot.get(isbn);
+        if (item != null) {
+            if (promote) {
+                hot.put(isbn, item);
+            }
+            return item;
+        }
+        if (!isbns.contains(isbn)) {
+            return null;
+        }
+        item = findInSegments(segments, isbn);
+        if (item != null && promote) {
+            hot.put(isbn, item);
+            hotBytes += estimateBytes(item);
+        }
+        return item;
+    }
+
+    /**
+     * Newest on-disk copy of the ISBN, or {@code null}. Callers hold the monitor or references to the segments.
+     */
+    private InventoryItem findInSegments(List<Segment> newestFirst, String isbn) {
+        for (Segment segment : newestFirst) {
+            if (!segment.mightContain(isbn)) {
+                continue;
+            }
+            diskReads.increment();
+            InventoryItem item;
+            try {
+                item = segment.find(isbn);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Snapshot of the segment list with a reference taken on each segment, for reading outside the monitor.
+     */
+    private synchronized List<Segment> retainSegments() {
+        for (Segment segment : segments) {
+            segment.retain();
+        }
+        return segments;
+    }
+
+    /**
+     * Drops one reference per segment. After {@link #close()} the last reader to let go also removes the directory.
+     */
+    private void releaseSegments(List<Segment> released) {
+        try {
+            for (Segment segment : released) {
+                segment.release();
+            }
+            if (closed) {
+                Files.deleteIfExists(directory);
+            }
+        } catch (DirectoryNotEmptyException e) {
+            // a reader still holds a segment; its release deletes the directory
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void putHot(String isbn, InventoryItem item) {
+        if (hot.put(isbn, item) == null) {
+            hotBytes += estimateBytes(item);
+        }
+        dirty.add(isbn);
+    }
+
+    /**
+     * Writes the dirty items among the least recently used ones to a new segment, then evicts them all. Nothing is
+     * evicted unless the write succeeded.
+     */
+    private void evictIfOverBudget() {
+        if (hotBytes <= heapBudgetBytes) {
+            return;
+        }
+        long target = heapBudgetBytes - heapBudgetBytes / 4;
+        long remainingBytes = hotBytes;
+        List<String> victims = new ArrayList<>();
+        List<InventoryItem> spill = new ArrayList<>();
+        for (Map.Entry<String, InventoryItem> entry : hot.entrySet()) {
+            if (remainingBytes <= target) {
+                break;
+            }
+            victims.add(entry.getKey());
+            remainingBytes -= estimateBytes(entry.getValue());
+            if (dirty.contains(entry.getKey())) {
+                spill.add(entry.getValue());
+            }
+        }
+        if (!spill.isEmpty()) {
+            spill.sort(Comparator.comparing(item -> item.book().isbn()));
+            Segment segment;
+            try {
+                segment = Segment.write(nextSegmentPath(), spill.iterator(), spill.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            List<Segment> updated = new ArrayList<>(segments.size() + 1);
+            updated.add(segment);
+            updated.addAll(segments);
+            segments = List.copyOf(updated);
+        }
+        for (String victim : victims) {
+            hot.remove(victim);
+            dirty.remove(victim);
+        }
+        hotBytes = remainingBytes;
+        if (segments.size() > maxSegments && compaction.isDone()) {
+            startCompaction(segmentsToMerge());
+        }
+    }
+
+    /**
+     * Runs on the compactor thread with a reference on each input. Inputs are adjacent in the list, and stay so
+     * because flushes only prepend and only one compaction runs at a time; the merged segment replaces them in
+     * place, behind any newer segments and ahead of older ones. The list's references to the inputs are dropped
+     * once it no longer holds them.
+     */
+    private void mergeSegments(List<Segment> inputs, Path target) {
+        try {
+            Segment merged;
+            try {
+                merged = Segment.merge(target, inputs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            synchronized (this) {
+                if (closed) {
+                    releaseSegments(List.of(merged));
+                    return;
+                }
+                int start = segments.indexOf(inputs.get(0));
+                List<Segment> updated = new ArrayList<>(segments.subList(0, start));
+                updated.add(merged);
+                updated.addAll(segments.subList(start + inputs.size(), segments.size()));
+                segments = List.copyOf(updated);
+                if (segments.size() > maxSegments) {
+                    // flushes that arrived during a long merge would otherwise wait for the next eviction
+                    startCompaction(segmentsToMerge());
+                }
+            }
+            releaseSegments(inputs);
+        } finally {
+            releaseSegments(inputs);
+        }
+    }
+
+    private Path nextSegmentPath() {
+        return directory.resolve(String.format("segment-%08d.dat", nextSegmentId++));
+    }
+
+    private void requireOpen() {
+        if (closed) {
+            throw new IllegalStateException("repository is closed");
+        }
+    }
+
+    static long estimateBytes(InventoryItem item) {
+        Book book = item.book();
+        return ITEM_OVERHEAD_BYTES + 2L * (book.isbn().length() + book.title().length() + book.author().length());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.library.repository;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API scanner. Each step loads one vector at {@code i} and one at {@code i + needle.length - 1} and compares
+ * them with the needle's first and last byte; only lanes where both match are verified byte by byte, so the common
+ * case touches each input byte in a couple of SIMD instructions. The tail shorter than a vector is scanned scalar.
+ * Candidate lanes are read from the mask as a {@code long}, so vectors are capped at 64 byte lanes (512 bits).
+ * <p>
+ * Loaded reflectively by {@link ByteScanner#preferred()}; requires {@code --add-modules jdk.incubator.vector}.
+ */
+final class VectorByteScanner implements ByteScanner {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() <= Long.SIZE
+            ? ByteVector.SPECIES_PREFERRED
+            : VectorSpecies.of(byte.class, VectorShape.forBitSize(Long.SIZE * Byte.SIZE));
+
+    @Override
+    public int indexOf(byte[] data, int from, int to, byte[] needle) {
+        int lastOffset = needle.length - 1;
+        byte first = needle[0];
+        byte last = needle[lastOffset];
+        int lanes = SPECIES.length();
+        int i = from;
+        for (int bound = to - lastOffset - lanes; i <= bound; i += lanes) {
+            ByteVector firstBytes = ByteVector.fromArray(SPECIES, data, i);
+            ByteVector lastBytes = ByteVector.fromArray(SPECIES, data, i + lastOffset);
+            long candidates = firstBytes.eq(first).and(lastBytes.eq(last)).toLong();
+            while (candidates != 0) {
+                int position = i + Long.numberOfTrailingZeros(candidates);
+                if (ByteScanner.matchesAt(data, position, needle)) {
+                    return position;
+                }
+                candidates &= candidates - 1;
+            }
+        }
+        return ScalarByteScanner.INSTANCE.indexOf(data, i, to, needle);
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}
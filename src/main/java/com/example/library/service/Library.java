@@ -2,8 +2,11 @@ package com.example.library.service;
 
 import com.example.library.domain.Book;
 import com.example.library.domain.BookAvailability;
+import com.example.library.domain.BookQuery;
 
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Public service API for library operations (search, borrow, and availability).
@@ -25,6 +28,39 @@ public interface Library {
      */
     Set<BookAvailability>  findByTitle(String titleQuery);
 
+    /**
+     * Finds books matching a boolean query, e.g. author and title prefixes that are available, in one call.
+     */
+    Set<BookAvailability> findByQuery(BookQuery query);
+
+    /**
+     * Autocomplete: up to {@code limit} books whose title or author starts with the prefix (case-insensitive),
+     * most borrowed first.
+     */
+    List<BookAvailability> suggest(String prefix, int limit);
+
+    /**
+     * Up to {@code limit} books whose title or author contains the query anywhere (case-insensitive), most
+     * borrowed first.
+     */
+    List<BookAvailability> searchContaining(String query, int limit);
+
+    /**
+     * Lazily streams books where author starts with the query (case-insensitive).
+     * Unlike {@link #findByAuthor(String)} the result is never materialized; close the stream when done.
+     */
+    Stream<BookAvailability> streamByAuthor(String authorQuery);
+
+    /**
+     * Lazily streams books where title starts with the query (case-insensitive).
+     */
+    Stream<BookAvailability> streamByTitle(String titleQuery);
+
+    /**
+     * Lazily streams the whole inventory.
+     */
+    Stream<BookAvailability> streamAll();
+
     /**
      * Finds a single book by ISBN (exact match).
      */
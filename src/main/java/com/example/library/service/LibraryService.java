@@ -2,15 +2,18 @@ package com.example.library.service;
 
 import com.example.library.domain.Book;
 import com.example.library.domain.BookAvailability;
+import com.example.library.domain.BookQuery;
 import com.example.library.repository.InventoryItem;
 import com.example.library.repository.InventoryRepository;
 import com.example.library.util.LibraryUtils;
 
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.example.library.domain.BookType.REFERENCE;
 
@@ -55,6 +58,60 @@ public class LibraryService implements Library {
                 .orElse(Set.of());
     }
 
+    @Override
+    public Set<BookAvailability> findByQuery(BookQuery query) {
+        Objects.requireNonNull(query, "query must be provided");
+
+        return repository.findByQuery(query)
+                .map(items -> items.stream()
+                        .map(InventoryItem::toAvailability)
+                        .collect(Collectors.toUnmodifiableSet()))
+                .orElse(Set.of());
+    }
+
+    @Override
+    public List<BookAvailability> suggest(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        if (LibraryUtils.isBlank(prefix)) return List.of();
+
+        return repository.suggest(prefix, limit).stream()
+                .map(InventoryItem::toAvailability)
+                .toList();
+    }
+
+    @Override
+    public List<BookAvailability> searchContaining(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        if (LibraryUtils.isBlank(query)) return List.of();
+
+        return repository.searchContaining(query, limit).stream()
+                .map(InventoryItem::toAvailability)
+                .toList();
+    }
+
+    @Override
+    public Stream<BookAvailability> streamByAuthor(String author) {
+        if (LibraryUtils.isBlank(author)) return Stream.empty();
+
+        return repository.streamByAuthor(author).map(InventoryItem::toAvailability);
+    }
+
+    @Override
+    public Stream<BookAvailability> streamByTitle(String title) {
+        if (LibraryUtils.isBlank(title)) return Stream.empty();
+
+        return repository.streamByTitle(title).map(InventoryItem::toAvailability);
+    }
+
+    @Override
+    public Stream<BookAvailability> streamAll() {
+        return repository.streamAll().map(InventoryItem::toAvailability);
+    }
+
     @Override
     public BookAvailability findByIsbn(String isbn) {
         if (LibraryUtils.isBlank(isbn)) {
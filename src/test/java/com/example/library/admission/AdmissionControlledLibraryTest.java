@@ -0,0 +1,45 @@
+package com.example.library.admission;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookType;
+import com.example.library.repository.InMemoryInventoryRepository;
+import com.example.library.service.LibraryService;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlledLibraryTest {
+    @Test
+    void saturatedSearchesFailFastWhileBorrowsAreStillAdmitted() {
+        AdmissionControlledLibrary library =
+                new AdmissionControlledLibrary(new LibraryService(new InMemoryInventoryRepository()));
+        library.addBook(new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL), 1);
+
+        AimdLimiter searchLimiter = library.limiter(OperationClass.PREFIX_SEARCH);
+        while (searchLimiter.tryAcquire()) {
+            // occupy every search slot
+        }
+
+        assertThatThrownBy(() -> library.findByAuthor("Homer"))
+                .isInstanceOf(OverloadedException.class)
+                .extracting(e -> ((OverloadedException) e).operationClass())
+                .isEqualTo(OperationClass.PREFIX_SEARCH);
+        assertThatThrownBy(() -> library.suggest("Hom", 5)).isInstanceOf(OverloadedException.class);
+        assertThatThrownBy(library::totalBorrowedCount).isInstanceOf(OverloadedException.class);
+        assertThat(library.borrow("9780140449136")).isTrue();
+        assertThat(library.remainingByIsbn("9780140449136")).isZero();
+    }
+
+    @Test
+    void releasesSlotsWhenDelegateThrows() {
+        AdmissionControlledLibrary library =
+                new AdmissionControlledLibrary(new LibraryService(new InMemoryInventoryRepository()));
+
+        assertThatThrownBy(() -> library.findByIsbn("9780140449136"))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThat(library.limiter(OperationClass.POINT_LOOKUP).inFlight()).isZero();
+    }
+}
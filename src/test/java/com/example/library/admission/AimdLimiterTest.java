@@ -0,0 +1,84 @@
+package com.example.library.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AimdLimiterTest {
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+    private static final long SLOW = Duration.ofMillis(100).toNanos();
+
+    @Test
+    void rejectsBeyondLimitWithoutQueueing() {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 10, Duration.ofMillis(10), 0.5);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.rejectedCount()).isEqualTo(1);
+        assertThat(limiter.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void growsAdditivelyOnFastCallsAndShrinksMultiplicativelyOnSlowOnes() {
+        AtomicLong clock = new AtomicLong();
+        AimdLimiter limiter = new AimdLimiter(4, 1, 10, Duration.ofMillis(10), 0.5, clock::get);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        clock.addAndGet(FAST);
+        limiter.release(FAST);
+        assertThat(limiter.limit()).isEqualTo(5);
+
+        clock.addAndGet(SLOW);
+        limiter.release(SLOW);
+        assertThat(limiter.limit()).isEqualTo(2);
+
+        limiter.tryAcquire();
+        clock.addAndGet(SLOW);
+        limiter.release(SLOW);
+        assertThat(limiter.limit()).isEqualTo(1);
+    }
+
+    @Test
+    void backsOffOncePerBurstOfSlowCalls() {
+        AtomicLong clock = new AtomicLong();
+        AimdLimiter limiter = new AimdLimiter(8, 1, 10, Duration.ofMillis(10), 0.5, clock::get);
+
+        for (int i = 0; i < 8; i++) {
+            limiter.tryAcquire();
+        }
+        clock.addAndGet(SLOW);
+        for (int i = 0; i < 8; i++) {
+            limiter.release(SLOW);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(4);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void doesNotGrowWhenUnderutilized() {
+        AimdLimiter limiter = new AimdLimiter(8, 1, 10, Duration.ofMillis(10), 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(FAST);
+
+        assertThat(limiter.limit()).isEqualTo(8);
+    }
+
+    @Test
+    void validatesConfiguration() {
+        assertThatThrownBy(() -> new AimdLimiter(0, 1, 10, Duration.ofMillis(10), 0.5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AimdLimiter(4, 1, 10, Duration.ZERO, 0.5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AimdLimiter(4, 1, 10, Duration.ofMillis(10), 1.0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.library.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BorrowAnalyticsTest {
+    private final AtomicLong now = new AtomicLong();
+    private final BorrowAnalytics analytics =
+            new BorrowAnalytics(Duration.ofMinutes(60), 6, 1024, 4, 8, now::get);
+
+    @Test
+    void findsHeavyHittersAmongLongTail() {
+        for (int i = 0; i < 1000; i++) {
+            analytics.onBorrow("tail-" + i);
+        }
+        for (int i = 0; i < 50; i++) {
+            analytics.onBorrow("hot-a");
+            analytics.onBorrow("hot-a");
+            analytics.onBorrow("hot-b");
+        }
+
+        assertThat(analytics.topBorrowed(2))
+                .extracting(BorrowAnalytics.IsbnCount::isbn)
+                .containsExactly("hot-a", "hot-b");
+        assertThat(analytics.estimateBorrows("hot-a")).isBetween(100L, 110L);
+        assertThat(analytics.estimateBorrows("unknown")).isLessThan(10L);
+    }
+
+    @Test
+    void forgetsBorrowsOlderThanTheWindow() {
+        analytics.onBorrow("old");
+        analytics.onBorrow("old");
+
+        now.addAndGet(Duration.ofMinutes(30).toNanos());
+        analytics.onBorrow("recent");
+
+        assertThat(analytics.estimateBorrows("old")).isEqualTo(2);
+        assertThat(analytics.topBorrowed(5))
+                .extracting(BorrowAnalytics.IsbnCount::isbn)
+                .containsExactly("old", "recent");
+
+        now.addAndGet(Duration.ofMinutes(35).toNanos());
+
+        assertThat(analytics.estimateBorrows("old")).isZero();
+        assertThat(analytics.topBorrowed(5))
+                .extracting(BorrowAnalytics.IsbnCount::isbn)
+                .containsExactly("recent");
+    }
+
+    @Test
+    void keepsEveryBorrowWhenTheBucketRotatesUnderConcurrentLoad() throws InterruptedException {
+        int threads = 4;
+        int borrowsPerThread = 20_000;
+        long switchAt = threads * borrowsPerThread / 2;
+        long later = Duration.ofMinutes(60).toNanos();
+        AtomicLong clockReads = new AtomicLong();
+        // one clock read per call; the read that crosses switchAt reuses epoch 0's ring slot for epoch 6
+        BorrowAnalytics rotating = new BorrowAnalytics(Duration.ofMinutes(60), 6, 1024, 4, 8,
+                () -> clockReads.incrementAndGet() > switchAt ? later : 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < borrowsPerThread; i++) {
+                        rotating.onBorrow("hot");
+                    }
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        boolean finished = done.await(10, TimeUnit.SECONDS);
+        executor.shutdownNow();
+
+        assertThat(finished).isTrue();
+        long borrowsAfterSwitch = clockReads.get() - switchAt;
+        assertThat(rotating.estimateBorrows("hot")).isEqualTo(borrowsAfterSwitch);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.library.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountMinSketchTest {
+    @Test
+    void keepsKeysWithEqualHashCodesApart() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+
+        for (int i = 0; i < 100; i++) {
+            sketch.add("BB");
+        }
+
+        assertThat(sketch.add("Aa")).isEqualTo(1L);
+        assertThat(sketch.estimate("BB")).isEqualTo(100L);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.library.export;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookAvailability;
+import com.example.library.domain.BookType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NdjsonExporterTest {
+    @Test
+    void writesOneEscapedJsonObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Book book = new Book("9780140449136", "The \"Odyssey\"", "Homér", BookType.NORMAL);
+
+        long rows = new NdjsonExporter().export(Stream.of(new BookAvailability(book, 3)), Channels.newChannel(out));
+
+        assertThat(rows).isEqualTo(1);
+        assertThat(out.toString(UTF_8)).isEqualTo(
+                "{\"isbn\":\"9780140449136\",\"title\":\"The \\\"Odyssey\\\"\",\"author\":\"Homér\","
+                        + "\"type\":\"NORMAL\",\"availableCopies\":3}\n");
+    }
+
+    @Test
+    void streamsMoreDataThanTheBufferHolds() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Stream<BookAvailability> rows = IntStream.range(0, 10_000)
+                .mapToObj(i -> new BookAvailability(
+                        new Book("isbn-" + i, "Title " + i, "Author", BookType.NORMAL), i));
+
+        long written = new NdjsonExporter(32).export(rows, Channels.newChannel(out));
+
+        assertThat(written).isEqualTo(10_000);
+        assertThat(out.toString(UTF_8).lines()).hasSize(10_000)
+                .last()
+                .isEqualTo("{\"isbn\":\"isbn-9999\",\"title\":\"Title 9999\",\"author\":\"Author\","
+                        + "\"type\":\"NORMAL\",\"availableCopies\":9999}");
+    }
+}
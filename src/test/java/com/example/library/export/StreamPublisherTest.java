@@ -0,0 +1,94 @@
+package com.example.library.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamPublisherTest {
+    @Test
+    void pullsOnlyRequestedElements() {
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        StreamPublisher<Integer> publisher = new StreamPublisher<>(
+                () -> IntStream.range(0, 1_000_000).boxed().peek(i -> pulled.incrementAndGet())
+                        .onClose(() -> closed.set(true)),
+                Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        publisher.subscribe(subscriber);
+        subscriber.subscription.get().request(3);
+
+        assertThat(subscriber.received).containsExactly(0, 1, 2);
+        assertThat(pulled.get()).isEqualTo(3);
+
+        subscriber.subscription.get().request(2);
+        subscriber.subscription.get().cancel();
+
+        assertThat(subscriber.received).containsExactly(0, 1, 2, 3, 4);
+        assertThat(pulled.get()).isEqualTo(5);
+        assertThat(closed).isTrue();
+        assertThat(subscriber.completed).isFalse();
+    }
+
+    @Test
+    void completesAndClosesStreamWhenExhausted() {
+        AtomicBoolean closed = new AtomicBoolean();
+        StreamPublisher<Integer> publisher = new StreamPublisher<>(
+                () -> IntStream.range(0, 3).boxed().onClose(() -> closed.set(true)), Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        publisher.subscribe(subscriber);
+        subscriber.subscription.get().request(Long.MAX_VALUE);
+
+        assertThat(subscriber.received).containsExactly(0, 1, 2);
+        assertThat(subscriber.completed).isTrue();
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void signalsErrorForNonPositiveRequest() {
+        StreamPublisher<Integer> publisher = new StreamPublisher<>(() -> IntStream.range(0, 3).boxed(), Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        publisher.subscribe(subscriber);
+        subscriber.subscription.get().request(0);
+
+        assertThat(subscriber.error.get()).isInstanceOf(IllegalArgumentException.class);
+        assertThat(subscriber.received).isEmpty();
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<Integer> {
+        private final AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        private final List<Integer> received = new CopyOnWriteArrayList<>();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription.set(subscription);
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
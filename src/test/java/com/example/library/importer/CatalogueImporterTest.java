@@ -0,0 +1,139 @@
+package com.example.library.importer;
+
+import com.example.library.repository.InMemoryInventoryRepository;
+import com.example.library.repository.InventoryItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogueImporterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void importsValidRowsAndReportsRejectedOnes() throws IOException {
+        Path file = tempDir.resolve("catalogue.csv");
+        Files.writeString(file, """
+                isbn,title,author,type,copies
+                9780140449136,The Odyssey,Homer,NORMAL,3
+                9780140449181,"The Iliad, Deluxe",Homer,normal,2\r
+                9780199535569,"Oxford ""English"" Dictionary",Oxford,REFERENCE,1
+
+                9780000000001,Broken,Nobody,MAGAZINE,1
+                9780000000002,Broken,Nobody,NORMAL,0
+                ,No Isbn,Nobody,NORMAL,1
+                too,few,fields
+                """, UTF_8);
+        InMemoryInventoryRepository repository = new InMemoryInventoryRepository();
+
+        ImportReport report = new CatalogueImporter(repository).importCsv(file, true);
+
+        assertThat(report.acceptedRows()).isEqualTo(3);
+        assertThat(report.rejectedRows()).isEqualTo(4);
+        assertThat(report.rejectedSamples()).extracting(ImportReport.RejectedRow::reason)
+                .containsExactly("unknown book type", "copies must be a positive integer",
+                        "isbn must be provided", "expected 5 fields");
+        assertThat(repository.findByIsbn("9780140449181"))
+                .get()
+                .extracting(item -> item.book().title())
+                .isEqualTo("The Iliad, Deluxe");
+        assertThat(repository.findByIsbn("9780199535569"))
+                .get()
+                .extracting(item -> item.book().title())
+                .isEqualTo("Oxford \"English\" Dictionary");
+    }
+
+    @Test
+    void splitsSmallChunksOnLineBoundariesAndAccumulatesCopies() throws IOException {
+        Path file = tempDir.resolve("catalogue.csv");
+        StringBuilder csv = new StringBuilder();
+        int rows = 500;
+        for (int i = 0; i < rows; i++) {
+            csv.append("97800000").append(i % 50).append(",Title ").append(i % 50).append(",Author,NORMAL,1\n");
+        }
+        Files.writeString(file, csv, UTF_8);
+        InMemoryInventoryRepository repository = new InMemoryInventoryRepository();
+
+        ImportReport report = new CatalogueImporter(repository, 64, 7, 4).importCsv(file, false);
+
+        assertThat(report.acceptedRows()).isEqualTo(rows);
+        assertThat(report.rejectedRows()).isZero();
+        assertThat(repository.findByIsbn("978000007"))
+                .get()
+                .extracting(InventoryItem::totalCopies)
+                .isEqualTo(rows / 50);
+    }
+
+    @Test
+    void reportsRowsConflictingWithExistingBooks() throws IOException {
+        Path file = tempDir.resolve("catalogue.csv");
+        Files.writeString(file, """
+                9780140449136,The Odyssey,Homer,NORMAL,3
+                9780140449136,Odyssey,Homer,NORMAL,1
+                """, UTF_8);
+
+        ImportReport report = new CatalogueImporter(new InMemoryInventoryRepository()).importCsv(file, false);
+
+        assertThat(report.acceptedRows()).isEqualTo(1);
+        assertThat(report.rejectedRows()).isEqualTo(1);
+        assertThat(report.rejectedSamples()).containsExactly(new ImportReport.RejectedRow(
+                "9780140449136,The Odyssey,Homer,NORMAL,3\n".length(),
+                "ISBN already exists with different book details"));
+    }
+
+    @Test
+    void samplesFirstRejectedRowsWhetherParsingOrTheRepositoryRejectsThem() throws IOException {
+        Path file = tempDir.resolve("catalogue.csv");
+        StringBuilder csv = new StringBuilder("9780140449136,The Odyssey,Homer,NORMAL,3\n");
+        long conflictOffset = csv.length();
+        csv.append("9780140449136,Odyssey,Homer,NORMAL,1\n");
+        for (int i = 0; i < 150; i++) {
+            csv.append("too,few,fields\n");
+        }
+        Files.writeString(file, csv, UTF_8);
+
+        ImportReport report = new CatalogueImporter(new InMemoryInventoryRepository()).importCsv(file, false);
+
+        assertThat(report.rejectedRows()).isEqualTo(151);
+        assertThat(report.rejectedSamples()).hasSize(100);
+        assertThat(report.rejectedSamples().get(0)).isEqualTo(new ImportReport.RejectedRow(conflictOffset,
+                "ISBN already exists with different book details"));
+        assertThat(report.rejectedSamples().get(99).reason()).isEqualTo("expected 5 fields");
+    }
+
+    @Test
+    void appliesConflictingRowsInFileOrderAcrossChunks() throws IOException {
+        Path file = tempDir.resolve("catalogue.csv");
+        StringBuilder csv = new StringBuilder();
+        List<Long> conflictOffsets = new ArrayList<>();
+        int rows = 400;
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                conflictOffsets.add((long) csv.length());
+            }
+            csv.append("9780140449136,Edition ").append(i).append(",Homer,NORMAL,1\n");
+        }
+        Files.writeString(file, csv, UTF_8);
+        InMemoryInventoryRepository repository = new InMemoryInventoryRepository();
+
+        ImportReport report = new CatalogueImporter(repository, 256, 3, 4).importCsv(file, false);
+
+        assertThat(report.acceptedRows()).isEqualTo(1);
+        assertThat(report.rejectedRows()).isEqualTo(rows - 1);
+        assertThat(report.rejectedSamples())
+                .extracting(ImportReport.RejectedRow::offset)
+                .containsExactlyElementsOf(conflictOffsets.subList(0, report.rejectedSamples().size()));
+        assertThat(repository.findByIsbn("9780140449136"))
+                .get()
+                .extracting(item -> item.book().title())
+                .isEqualTo("Edition 0");
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.library.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+    @Test
+    void reportsQuantilesWithinBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertThat(histogram.count()).isEqualTo(1000);
+        assertThat((double) histogram.valueAtQuantile(0.5)).isCloseTo(500_000, within(500_000 * 0.02));
+        assertThat((double) histogram.valueAtQuantile(0.99)).isCloseTo(990_000, within(990_000 * 0.02));
+        assertThat((double) histogram.max()).isCloseTo(1_000_000, within(1_000_000 * 0.02));
+    }
+
+    @Test
+    void bucketIndexesAreMonotonicAndBoundValues() {
+        int previous = -1;
+        for (long value = 0; value < 1_000_000; value += 37) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(index).isGreaterThanOrEqualTo(previous);
+            assertThat(LatencyHistogram.highestValueIn(index)).isGreaterThanOrEqualTo(value);
+            previous = index;
+        }
+        assertThat(new LatencyHistogram().valueAtQuantile(0.99)).isZero();
+    }
+}
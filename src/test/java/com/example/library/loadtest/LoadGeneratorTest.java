@@ -0,0 +1,71 @@
+package com.example.library.loadtest;
+
+import com.example.library.admission.OperationClass;
+import com.example.library.admission.OverloadedException;
+import com.example.library.repository.InMemoryInventoryRepository;
+import com.example.library.service.Library;
+import com.example.library.service.LibraryService;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadGeneratorTest {
+    @Test
+    void drivesEveryOperationAndChecksSlos() {
+        SyntheticCatalogue catalogue = new SyntheticCatalogue(500, 7);
+        InMemoryInventoryRepository repository = new InMemoryInventoryRepository();
+        repository.addBooks(catalogue.entries(5));
+        WorkloadConfig config = new WorkloadConfig(500, 1.0, 2_000, Duration.ofMillis(500),
+                Map.of(Operation.LOOKUP, 1, Operation.BORROW, 1, Operation.AUTHOR_SEARCH, 1,
+                        Operation.TITLE_SEARCH, 1, Operation.SUGGEST, 1),
+                List.of(2, 4), 2, Duration.ofMillis(100), Duration.ofMillis(20),
+                Duration.ofNanos(1), null, null, null, 1);
+
+        LoadReport report = new LoadGenerator(new LibraryService(repository), catalogue, config).run();
+
+        assertThat(report.scheduled()).isPositive();
+        assertThat(report.operations().values()).allSatisfy(stats -> assertThat(stats.completed()).isPositive());
+        assertThat(report.operations().values().stream().mapToLong(LoadReport.OperationStats::completed).sum())
+                .isEqualTo(report.scheduled());
+        assertThat(report.passed()).isFalse();
+        assertThat(report.sloViolations()).allMatch(violation -> violation.contains("p99"));
+    }
+
+    @Test
+    void failsRunsThatShedCallsInsteadOfServingThem() {
+        SyntheticCatalogue catalogue = new SyntheticCatalogue(100, 7);
+        Library shedding = (Library) Proxy.newProxyInstance(Library.class.getClassLoader(),
+                new Class<?>[]{Library.class}, (proxy, method, args) -> {
+                    throw new OverloadedException(OperationClass.POINT_LOOKUP);
+                });
+        WorkloadConfig config = new WorkloadConfig(100, 1.0, 1_000, Duration.ofMillis(200),
+                Map.of(Operation.LOOKUP, 1), List.of(2), 1, Duration.ofMillis(100), Duration.ofMillis(20),
+                Duration.ofMillis(10), null, 0.5, 0.0, 1);
+
+        LoadReport report = new LoadGenerator(shedding, catalogue, config).run();
+
+        assertThat(report.operations().get(Operation.LOOKUP).completed()).isZero();
+        assertThat(report.passed()).isFalse();
+        assertThat(report.sloViolations()).containsExactly("LOOKUP shed rate 100.00% > 50.00%");
+    }
+
+    @Test
+    void parsesCommandLineOverDefaults() {
+        WorkloadConfig config = WorkloadConfig.fromArgs(new String[]{
+                "--books=1000", "--rate=50", "--duration=2s", "--mix=BORROW:1", "--slo-p999=none",
+                "--max-shed-rate=0.05", "--max-error-rate=none"});
+
+        assertThat(config.books()).isEqualTo(1000);
+        assertThat(config.duration()).isEqualTo(Duration.ofSeconds(2));
+        assertThat(config.mix()).containsOnlyKeys(Operation.BORROW);
+        assertThat(config.sloP99()).isEqualTo(WorkloadConfig.defaults().sloP99());
+        assertThat(config.sloP999()).isNull();
+        assertThat(config.maxShedRate()).isEqualTo(0.05);
+        assertThat(config.maxErrorRate()).isNull();
+    }
+}
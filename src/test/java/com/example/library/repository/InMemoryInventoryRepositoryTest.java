@@ -1,9 +1,21 @@
 package com.example.library.repository;
 
 import com.example.library.domain.Book;
+import com.example.library.domain.BookQuery;
 import com.example.library.domain.BookType;
+import com.example.library.domain.CatalogueEntry;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -56,6 +68,22 @@ class InMemoryInventoryRepositoryTest {
                 .isEqualTo(0);
     }
 
+    @Test
+    void notifiesBorrowListenerOnlyForSuccessfulBorrows() {
+        List<String> borrowed = new ArrayList<>();
+        InMemoryInventoryRepository repository = new InMemoryInventoryRepository(borrowed::add);
+        Book odyssey = new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL);
+        Book dictionary = new Book("9780199535569", "Oxford English Dictionary", "Oxford", BookType.REFERENCE);
+
+        repository.addBook(odyssey, 1);
+        repository.addBook(dictionary, 1);
+        repository.tryBorrow(odyssey.isbn());
+        repository.tryBorrow(odyssey.isbn());
+        repository.tryBorrow(dictionary.isbn());
+
+        assertThat(borrowed).containsExactly(odyssey.isbn());
+    }
+
     @Test
     void tryBorrowReturnsFalseForNullOrBlankIsbn() {
         InMemoryInventoryRepository repository = new InMemoryInventoryRepository();
@@ -100,6 +128,159 @@ class InMemoryInventoryRepositoryTest {
                 .isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Test
+    void addBooksSkipsConflictingEntriesAndAppliesTheRest() {
+        InMemoryInventoryRepository repository = new InMemoryInventoryRepository();
+        Book odyssey = new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL);
+        Book odysseyAlt = new Book("9780140449136", "Odyssey", "Homer", BookType.NORMAL);
+        Book iliad = new Book("9780140449181", "The Iliad", "Homer", BookType.NORMAL);
+
+        int added = repository.addBooks(List.of(
+                new CatalogueEntry(odyssey, 2),
+                new CatalogueEntry(odysseyAlt, 1),
+                new CatalogueEntry(iliad, 1)));
+
+        assertThat(added).isEqualTo(2);
+        assertThat(repository.findByAuthor("homer").get()).hasSize(2);
+    }
+
+    @Test
+    void failedDeferredBuildFallsBackToScanningAndCanBeRetried() throws Exception {
+        InMemoryInventoryRepository repository = new InMemoryInventoryRepository(BorrowListener.NONE,
+                IndexBuildMode.DEFERRED, EnumSet.of(SecondaryIndex.SUBSTRINGS));
+        repository.addBook(new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL), 1);
+        ForkJoinPool shutDown = new ForkJoinPool(1);
+        shutDown.shutdown();
+
+        CompletableFuture<Void> failed = repository.buildIndexesAsync(shutDown);
+
+        assertThatThrownBy(() -> failed.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(repository.indexesReady()).isFalse();
+        assertThat(repository.findByAuthor("hom").get()).hasSize(1);
+
+        repository.buildIndexesAsync(ForkJoinPool.commonPool()).get(10, TimeUnit.SECONDS);
+
+        assertThat(repository.indexesReady()).isTrue();
+        assertThat(repository.findByTitle("the od").get()).hasSize(1);
+        assertThat(repository.searchContaining("odyss", 10)).hasSize(1);
+    }
+
+    @Test
+    void deferredIndexesServeIsbnOperationsAndScanUntilBuilt() throws Exception {
+        InMemoryInventoryRepository repository =
+                new InMemoryInventoryRepository(BorrowListener.NONE, IndexBuildMode.DEFERRED,
+                        EnumSet.of(SecondaryIndex.SUGGESTIONS, SecondaryIndex.SUBSTRINGS));
+        Book odyssey = new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL);
+        Book iliad = new Book("9780140449181", "The Iliad", "Homer", BookType.NORMAL);
+        Book hobbit = new Book("9780261102217", "The Hobbit", "Tolkien", BookType.NORMAL);
+
+        repository.addBook(odyssey, 2);
+        repository.addBook(iliad, 1);
+
+        assertThat(repository.indexesReady()).isFalse();
+        assertThat(repository.tryBorrow(odyssey.isbn())).isTrue();
+        assertThat(repository.findByAuthor("hom").get()).hasSize(2);
+        assertThat(repository.findByTitle("the od").get()).hasSize(1);
+        assertThat(repository.suggest("the", 1))
+                .extracting(item -> item.book().isbn())
+                .containsExactly(odyssey.isbn());
+        assertThat(repository.searchContaining("iad", 10)).hasSize(1);
+
+        repository.buildIndexesAsync(ForkJoinPool.commonPool()).get(10, TimeUnit.SECONDS);
+        repository.addBook(hobbit, 1);
+
+        assertThat(repository.indexesReady()).isTrue();
+        assertThat(repository.findByAuthor("hom").get()).hasSize(2);
+        assertThat(repository.findByTitle("the").get()).hasSize(3);
+        assertThat(repository.suggest("the", 2))
+                .extracting(item -> item.book().isbn())
+                .containsExactly(odyssey.isbn(), iliad.isbn());
+        assertThat(repository.searchContaining("o", 10))
+                .extracting(item -> item.book().isbn())
+                .containsExactly(odyssey.isbn(), iliad.isbn(), hobbit.isbn());
+    }
+
+    @Test
+    void booksAddedDuringDeferredBuildAreIndexedOnce() throws Exception {
+        InMemoryInventoryRepository repository =
+                new InMemoryInventoryRepository(BorrowListener.NONE, IndexBuildMode.DEFERRED,
+                        EnumSet.of(SecondaryIndex.SUBSTRINGS));
+        Book odyssey = new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL);
+        Book iliad = new Book("9780140449181", "The Iliad", "Homer", BookType.NORMAL);
+        repository.addBook(odyssey, 1);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            pool.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            CompletableFuture<Void> build = repository.buildIndexesAsync(pool);
+            repository.addBook(iliad, 1);
+            release.countDown();
+            build.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+
+        assertThat(repository.searchContaining("homer", 10))
+                .extracting(item -> item.book().isbn())
+                .containsExactly(odyssey.isbn(), iliad.isbn());
+        assertThat(repository.findByAuthor("hom").get()).hasSize(2);
+    }
+
+    @Test
+    void searchContainingRanksMostBorrowedFirstWithinLimit() {
+        InMemoryInventoryRepository repository = new InMemoryInventoryRepository(BorrowListener.NONE,
+                IndexBuildMode.EAGER, EnumSet.of(SecondaryIndex.SUBSTRINGS));
+        Book warAndPeace = new Book("9780199232765", "War and Peace", "Leo Tolstoy", BookType.NORMAL);
+        Book artOfWar = new Book("9781590302255", "The Art of War", "Sun Tzu", BookType.NORMAL);
+        Book warCollection = new Book("9780000000001", "Collected Essays", "Warren Harding", BookType.REFERENCE);
+        Book odyssey = new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL);
+        repository.addBook(warAndPeace, 3);
+        repository.addBook(artOfWar, 3);
+        repository.addBook(warCollection, 1);
+        repository.addBook(odyssey, 1);
+        repository.tryBorrow(artOfWar.isbn());
+
+        assertThat(repository.searchContaining("WAR", 10))
+                .extracting(item -> item.book().isbn())
+                .containsExactly(artOfWar.isbn(), warCollection.isbn(), warAndPeace.isbn());
+        assertThat(repository.searchContaining("war", 1))
+                .extracting(item -> item.book().isbn())
+                .containsExactly(artOfWar.isbn());
+        assertThat(repository.searchContaining("  ", 10)).isEmpty();
+        assertThatThrownBy(() -> repository.searchContaining("war", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void queriesWithoutTheirSecondaryIndexFallBackToScanning() {
+        InMemoryInventoryRepository repository = new InMemoryInventoryRepository();
+        Book odyssey = new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL);
+        Book iliad = new Book("9780140449181", "The Iliad", "Homer", BookType.NORMAL);
+        repository.addBook(odyssey, 2);
+        repository.addBook(iliad, 2);
+        repository.tryBorrow(iliad.isbn());
+
+        assertThat(repository.indexesReady()).isTrue();
+        assertThat(repository.suggest("the", 2))
+                .extracting(item -> item.book().isbn())
+                .containsExactly(iliad.isbn(), odyssey.isbn());
+        assertThat(repository.searchContaining("yss", 10))
+                .extracting(item -> item.book().isbn())
+                .containsExactly(odyssey.isbn());
+        assertThat(repository.findByQuery(BookQuery.author("hom").and(BookQuery.title("the il"))).get())
+                .extracting(item -> item.book().isbn())
+                .containsExactly(iliad.isbn());
+    }
+
     @Test
     void findByIsbnReturnsEmptyForBlankInput() {
         InMemoryInventoryRepository repository = new InMemoryInventoryRepository();
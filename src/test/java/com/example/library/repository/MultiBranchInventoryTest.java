@@ -0,0 +1,122 @@
+package com.example.library.repository;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookType;
+import com.example.library.domain.CatalogueEntry;
+import com.example.library.domain.NetworkAvailability;
+import com.example.library.service.Library;
+import com.example.library.service.LibraryService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiBranchInventoryTest {
+    private final Book odyssey = new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL);
+    private final Book iliad = new Book("9780140449181", "The Iliad", "Homer", BookType.NORMAL);
+
+    @Test
+    void aggregatesAvailabilityAcrossBranches() {
+        MultiBranchInventory inventory = new MultiBranchInventory(List.of("central", "north", "south"));
+
+        inventory.addBook("central", odyssey, 2);
+        inventory.addBook("south", odyssey, 1);
+        inventory.addBook("north", iliad, 1);
+        assertThat(inventory.tryBorrow("central", odyssey.isbn())).isTrue();
+        assertThat(inventory.tryBorrow("north", odyssey.isbn())).isFalse();
+
+        assertThat(inventory.availableCopies(odyssey.isbn())).isEqualTo(2);
+        assertThat(inventory.findAvailability(odyssey.isbn()))
+                .get()
+                .extracting(NetworkAvailability::totalCopies, NetworkAvailability::availableCopies,
+                        NetworkAvailability::availableByBranch)
+                .containsExactly(3, 2, Map.of("central", 1, "south", 1));
+        assertThat(inventory.findAvailability("unknown")).isEmpty();
+    }
+
+    @Test
+    void filtersSharedIndexesByBranch() {
+        MultiBranchInventory inventory = new MultiBranchInventory(List.of("central", "north"));
+
+        inventory.addBook("central", odyssey, 1);
+        inventory.addBook("north", iliad, 1);
+
+        assertThat(inventory.findByAuthor("central", "hom").get())
+                .extracting(item -> item.book().title())
+                .containsExactly("The Odyssey");
+        assertThat(inventory.findByTitle("north", "the").get()).hasSize(1);
+        assertThat(inventory.findByTitle("north", "the od")).isEmpty();
+    }
+
+    @Test
+    void searchesFromWhicheverSideIsSmaller() {
+        MultiBranchInventory inventory = new MultiBranchInventory(List.of("central", "north"));
+        for (int i = 0; i < 20; i++) {
+            inventory.addBook("central", new Book(String.format("978%010d", i), "Homeric Hymn " + i, "Homer",
+                    BookType.NORMAL), 1);
+        }
+        inventory.addBook("north", odyssey, 1);
+        inventory.addBook("north", new Book("9780000000099", "Homeric Hymn 99", "Homer", BookType.NORMAL), 1);
+
+        assertThat(inventory.findByAuthor("north", "hom").get())
+                .extracting(item -> item.book().isbn())
+                .containsExactlyInAnyOrder(odyssey.isbn(), "9780000000099");
+        assertThat(inventory.findByTitle("north", "homeric").get()).hasSize(1);
+        assertThat(inventory.findByTitle("central", "homeric hymn 1").get()).hasSize(11);
+        assertThat(inventory.branch("north").streamAll()).hasSize(2);
+        assertThat(inventory.branch("central").streamByTitle("the")).isEmpty();
+    }
+
+    @Test
+    void branchViewServesALibrary() {
+        MultiBranchInventory inventory = new MultiBranchInventory(List.of("central", "north"));
+        Library central = new LibraryService(inventory.branch("central"));
+        Library north = new LibraryService(inventory.branch("north"));
+
+        central.addBook(odyssey, 1);
+        north.addBook(odyssey, 1);
+
+        assertThat(central.borrow(odyssey.isbn())).isTrue();
+        assertThat(central.borrow(odyssey.isbn())).isFalse();
+        assertThat(north.remainingByIsbn(odyssey.isbn())).isEqualTo(1);
+        assertThat(central.totalBorrowedCount()).isEqualTo(1);
+        assertThat(north.totalBorrowedCount()).isZero();
+        assertThat(north.streamByAuthor("homer")).hasSize(1);
+    }
+
+    @Test
+    void rejectsUnknownBranchesAndConflictingBooks() {
+        MultiBranchInventory inventory = new MultiBranchInventory(List.of("central", "north"));
+        inventory.addBook("central", odyssey, 1);
+
+        assertThatThrownBy(() -> inventory.addBook("east", odyssey, 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unknown branch");
+        assertThatThrownBy(() -> inventory.addBook("north",
+                new Book(odyssey.isbn(), "Odyssey", "Homer", BookType.NORMAL), 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MultiBranchInventory(List.of("a", "a")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsRowsThatWouldOverflowCopyCounts() {
+        MultiBranchInventory inventory = new MultiBranchInventory(List.of("central", "north"));
+        inventory.addBook("central", odyssey, Integer.MAX_VALUE - 1);
+        List<String> reasons = new ArrayList<>();
+
+        int added = inventory.branch("north").addBooks(
+                List.of(new CatalogueEntry(odyssey, 2), new CatalogueEntry(iliad, 1)),
+                (reason, index) -> reasons.add(index + ": " + reason));
+
+        assertThat(added).isEqualTo(1);
+        assertThat(reasons).containsExactly("0: totalCopies must not exceed " + Integer.MAX_VALUE);
+        assertThat(inventory.availableCopies(odyssey.isbn())).isEqualTo(Integer.MAX_VALUE - 1);
+        assertThatThrownBy(() -> InventoryItem.create(iliad, Integer.MAX_VALUE).addCopies(1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.library.repository;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookQuery;
+import com.example.library.domain.BookType;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.example.library.domain.BookQuery.author;
+import static com.example.library.domain.BookQuery.available;
+import static com.example.library.domain.BookQuery.not;
+import static com.example.library.domain.BookQuery.title;
+import static com.example.library.domain.BookQuery.type;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryIndexTest {
+    private static final List<String> NAMES = List.of("tolstoy", "tolkien", "austen", "auden", "homer", "hugo");
+    private static final List<String> WORDS = List.of("war", "ward", "peace", "persuasion", "hobbit", "house");
+
+    @Test
+    void combinesPrefixTypeAndAvailabilityClauses() {
+        InMemoryInventoryRepository repository = new InMemoryInventoryRepository(BorrowListener.NONE,
+                IndexBuildMode.EAGER, EnumSet.of(SecondaryIndex.QUERIES));
+        Book warAndPeace = new Book("9780199232765", "War and Peace", "Leo Tolstoy", BookType.NORMAL);
+        Book warden = new Book("9780140434262", "The Warden", "Anthony Trollope", BookType.NORMAL);
+        Book warReference = new Book("9780000000001", "War Atlas", "Tolstoy Society", BookType.REFERENCE);
+        Book hobbit = new Book("9780261102217", "The Hobbit", "Tolkien", BookType.NORMAL);
+        repository.addBook(warAndPeace, 1);
+        repository.addBook(warden, 1);
+        repository.addBook(warReference, 1);
+        repository.addBook(hobbit, 1);
+
+        BookQuery borrowableTolstoyWar = author("leo tol").and(title("war"))
+                .and(available())
+                .and(not(type(BookType.REFERENCE)));
+        assertThat(isbns(repository, borrowableTolstoyWar)).containsExactly(warAndPeace.isbn());
+
+        repository.tryBorrow(warAndPeace.isbn());
+
+        assertThat(repository.findByQuery(borrowableTolstoyWar)).isEmpty();
+        assertThat(isbns(repository, author("tol").or(title("the w"))))
+                .containsExactlyInAnyOrder(warReference.isbn(), hobbit.isbn(), warden.isbn());
+        assertThat(isbns(repository, type(BookType.REFERENCE).or(not(available()))))
+                .containsExactlyInAnyOrder(warReference.isbn(), warAndPeace.isbn());
+        assertThat(repository.findByQuery(author(" "))).isEmpty();
+    }
+
+    @Test
+    void matchesFullScanOnRandomQueries() throws Exception {
+        InMemoryInventoryRepository indexed =
+                new InMemoryInventoryRepository(BorrowListener.NONE, IndexBuildMode.DEFERRED,
+                        EnumSet.of(SecondaryIndex.QUERIES));
+        Random random = new Random(11);
+        for (int i = 0; i < 2_000; i++) {
+            Book book = new Book(String.format("978%010d", i),
+                    pick(random, WORDS) + " " + pick(random, WORDS) + " " + i,
+                    pick(random, NAMES) + " " + pick(random, NAMES),
+                    random.nextInt(10) == 0 ? BookType.REFERENCE : BookType.NORMAL);
+            indexed.addBook(book, 1 + random.nextInt(2));
+        }
+        for (int i = 0; i < 1_500; i++) {
+            indexed.tryBorrow(String.format("978%010d", random.nextInt(2_000)));
+        }
+        indexed.buildIndexesAsync(ForkJoinPool.commonPool()).get(10, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 300; i++) {
+            BookQuery query = randomQuery(random, 3);
+            Set<InventoryItem> expected = indexed.streamAll()
+                    .filter(item -> query.matches(item.book(), item.availableCopies()))
+                    .collect(Collectors.toSet());
+            assertThat(indexed.findByQuery(query).orElse(Set.of())).as(query.toString()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void ignoresItemsAlreadyIndexedAndReadsAvailabilityFromLiveItems() {
+        Map<String, InventoryItem> items = new HashMap<>();
+        QueryIndex index = new QueryIndex(new PrefixIndex(), new PrefixIndex(), items::get);
+        Book hobbit = new Book("9780261102217", "The Hobbit", "Tolkien", BookType.NORMAL);
+        items.put(hobbit.isbn(), InventoryItem.create(hobbit, 1));
+        index.add(hobbit);
+        index.add(hobbit);
+
+        assertThat(index.execute(type(BookType.NORMAL))).containsExactly(hobbit.isbn());
+        assertThat(index.execute(available())).containsExactly(hobbit.isbn());
+
+        items.put(hobbit.isbn(), items.get(hobbit.isbn()).borrowOne().orElseThrow());
+
+        assertThat(index.execute(available())).isEmpty();
+    }
+
+    private static BookQuery randomQuery(Random random, int depth) {
+        int kind = random.nextInt(depth == 0 ? 4 : 7);
+        return switch (kind) {
+            case 0 -> author(pick(random, NAMES).substring(0, 1 + random.nextInt(4)));
+            case 1 -> title(pick(random, WORDS).substring(0, 1 + random.nextInt(3)));
+            case 2 -> type(random.nextBoolean() ? BookType.NORMAL : BookType.REFERENCE);
+            case 3 -> available();
+            case 4 -> BookQuery.allOf(randomQuery(random, depth - 1), randomQuery(random, depth - 1),
+                    randomQuery(random, depth - 1));
+            case 5 -> BookQuery.anyOf(randomQuery(random, depth - 1), randomQuery(random, depth - 1));
+            default -> not(randomQuery(random, depth - 1));
+        };
+    }
+
+    private static String pick(Random random, List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static Set<String> isbns(InventoryRepository repository, BookQuery query) {
+        return repository.findByQuery(query).orElseThrow().stream()
+                .map(item -> item.book().isbn())
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.library.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubstringIndexTest {
+
+    @Test
+    void findsQueriesAnywhereInTitleOrAuthor() {
+        for (SubstringIndex index : List.of(SubstringIndex.vectorized(), SubstringIndex.scalar())) {
+            index.add("1", "War and Peace", "Leo Tolstoy");
+            index.add("2", "The Art of War", "Sun Tzu");
+            index.add("3", "Peace Treaty", "Warren Harding");
+            index.add("4", "Crime and Punishment", "Fyodor Dostoevsky");
+
+            assertThat(index.isbnsContaining("WAR")).containsExactly("1", "2", "3");
+            assertThat(index.isbnsContaining(" and ")).containsExactly("1", "4");
+            assertThat(index.isbnsContaining("tolstoy")).containsExactly("1");
+            assertThat(index.isbnsContaining("xyz")).isEmpty();
+            assertThat(index.isbnsContaining("  ")).isEmpty();
+        }
+    }
+
+    @Test
+    void doesNotMatchAcrossFieldsOrItems() {
+        SubstringIndex index = SubstringIndex.vectorized();
+        index.add("1", "Dune", "Frank Herbert");
+        index.add("2", "Emma", "Jane Austen");
+
+        assertThat(index.isbnsContaining("dunefrank")).isEmpty();
+        assertThat(index.isbnsContaining("herbertemma")).isEmpty();
+        assertThat(index.isbnsContaining("a\0b")).isEmpty();
+    }
+
+    @Test
+    void matchesNonAsciiText() {
+        SubstringIndex index = SubstringIndex.vectorized();
+        index.add("1", "Les Misérables", "Victor Hugo");
+        index.add("2", "Öko Ärger", "Jürgen Müller");
+
+        assertThat(index.isbnsContaining("MISÉR")).containsExactly("1");
+        assertThat(index.isbnsContaining("müller")).containsExactly("2");
+    }
+
+    @Test
+    void vectorAndScalarScannersAgreeOnLargeIndexes() {
+        SubstringIndex vector = SubstringIndex.vectorized();
+        SubstringIndex scalar = SubstringIndex.scalar();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            String title = randomText(random, 5 + random.nextInt(40));
+            String author = randomText(random, 3 + random.nextInt(20));
+            vector.add(Integer.toString(i), title, author);
+            scalar.add(Integer.toString(i), title, author);
+        }
+
+        for (String query : List.of("a", "ab", "abc", "cab", "bacca", "ccccc", "abcabcabca")) {
+            assertThat(vector.isbnsContaining(query)).isEqualTo(scalar.isbnsContaining(query));
+        }
+        assertThat(vector.size()).isEqualTo(50_000);
+        assertThat(vector.sizeBytes()).isEqualTo(scalar.sizeBytes());
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(3)));
+        }
+        return text.toString();
+    }
+}
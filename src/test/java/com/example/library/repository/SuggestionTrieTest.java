@@ -0,0 +1,157 @@
+package com.example.library.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+    private final Map<String, Long> scores = new HashMap<>();
+
+    @Test
+    void keepsTopEntriesPerPrefixRankedByScoreThenIsbn() {
+        SuggestionTrie trie = new SuggestionTrie(2, 8);
+        add(trie, "the odyssey", "1");
+        add(trie, "the iliad", "2");
+        add(trie, "theogony", "3");
+
+        assertThat(trie.top("the", 2)).containsExactly("1", "2");
+
+        borrow(trie, "3", 4);
+        borrow(trie, "2", 1);
+
+        assertThat(trie.top("the", 2)).containsExactly("3", "2");
+        assertThat(trie.top("the ", 2)).containsExactly("2", "1");
+        assertThat(trie.top("the", 1)).containsExactly("3");
+        assertThat(trie.top("x", 2)).isEmpty();
+    }
+
+    @Test
+    void splitsCompressedRunsWhenKeysBranchOrEndInside() {
+        SuggestionTrie trie = new SuggestionTrie(3, 16);
+        add(trie, "the odyssey", "1");
+        add(trie, "the", "2");
+        add(trie, "the oracle", "3");
+
+        borrow(trie, "2", 5);
+        borrow(trie, "3", 2);
+
+        assertThat(trie.top("th", 3)).containsExactly("2", "3", "1");
+        assertThat(trie.top("the o", 3)).containsExactly("3", "1");
+        assertThat(trie.top("the ody", 3)).containsExactly("1");
+        assertThat(trie.top("the odx", 3)).isEmpty();
+        assertThat(trie.top("the odysseys", 3)).isEmpty();
+    }
+
+    @Test
+    void queuesOnlyScoresThatOvertakeTheCutoffOfAListLackingThem() {
+        SuggestionTrie trie = new SuggestionTrie(2, 8);
+        for (String isbn : List.of("1", "2", "3", "4", "5")) {
+            trie.add("a" + isbn, isbn, 0);
+        }
+
+        trie.recordScore("1", 3);
+        trie.recordScore("2", 2);
+        trie.recordScore("3", 1);
+        trie.recordScore("4", 1);
+        assertThat(trie.queued()).isZero();
+        trie.recordScore("5", 1);
+        assertThat(trie.queued()).isEqualTo(1);
+        trie.applyQueued();
+
+        assertThat(trie.top("a", 2)).containsExactly("1", "2");
+        trie.recordScore("5", 2);
+        assertThat(trie.queued()).isZero();
+        trie.recordScore("5", 3);
+        trie.recordScore("5", 4);
+        assertThat(trie.queued()).isEqualTo(1);
+        trie.applyQueued();
+
+        assertThat(trie.top("a", 2)).containsExactly("5", "1");
+        assertThat(trie.top("a4", 2)).containsExactly("4");
+        trie.recordScore("4", 3);
+        assertThat(trie.queued()).isZero();
+        trie.recordScore("4", 4);
+        trie.recordScore("unknown", 10);
+        assertThat(trie.queued()).isEqualTo(1);
+    }
+
+    @Test
+    void matchesBruteForceRankingUnderRandomUpdates() {
+        SuggestionTrie trie = new SuggestionTrie(4, 6);
+        Random random = new Random(7);
+        Map<String, List<String>> keys = new HashMap<>();
+        Set<String> indexed = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            String isbn = "isbn-" + i;
+            scores.put(isbn, 0L);
+            List<String> isbnKeys = i % 3 == 0
+                    ? List.of(randomKey(random, 8), randomKey(random, 8))
+                    : List.of(randomKey(random, 8));
+            keys.put(isbn, isbnKeys);
+            if (i < 400) {
+                isbnKeys.forEach(key -> trie.add(key, isbn, 0));
+                indexed.add(isbn);
+            }
+        }
+        List<String> isbns = List.copyOf(keys.keySet());
+        for (int step = 0; step < 5000; step++) {
+            if (step % 50 == 0) {
+                String added = "isbn-" + (400 + step / 50);
+                keys.get(added).forEach(key -> trie.add(key, added, scores.get(added)));
+                indexed.add(added);
+            }
+            String isbn = isbns.get(Math.min(isbns.size() - 1, (int) Math.abs(random.nextGaussian() * 60)));
+            long score = scores.merge(isbn, 1L + random.nextInt(3), Long::sum);
+            trie.recordScore(isbn, score);
+            if (random.nextInt(4) == 0) {
+                trie.applyQueued();
+            }
+            if (step % 100 == 0) {
+                trie.applyQueued();
+                String prefix = randomKey(random, 6);
+                List<String> expected = isbns.stream()
+                        .filter(indexed::contains)
+                        .filter(candidate -> keys.get(candidate).stream().anyMatch(key -> key.startsWith(prefix)))
+                        .sorted(Comparator.comparing((String candidate) -> -scores.get(candidate))
+                                .thenComparing(Comparator.naturalOrder()))
+                        .limit(4)
+                        .toList();
+                assertThat(trie.top(prefix, 4)).as(prefix).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void reportsPrefixesDeeperThanTheTrieAsUnsupported() {
+        SuggestionTrie trie = new SuggestionTrie(2, 4);
+
+        assertThat(trie.supports("the ")).isTrue();
+        assertThat(trie.supports("the o")).isFalse();
+    }
+
+    private void add(SuggestionTrie trie, String key, String isbn) {
+        trie.add(key, isbn, scores.computeIfAbsent(isbn, ignored -> 0L));
+    }
+
+    private void borrow(SuggestionTrie trie, String isbn, long borrows) {
+        trie.recordScore(isbn, scores.merge(isbn, borrows, Long::sum));
+        trie.applyQueued();
+    }
+
+    private static String randomKey(Random random, int maxLength) {
+        StringBuilder key = new StringBuilder();
+        int length = 1 + random.nextInt(maxLength);
+        for (int i = 0; i < length; i++) {
+            key.append("ab c".charAt(random.nextInt(4)));
+        }
+        return key.toString();
+    }
+}
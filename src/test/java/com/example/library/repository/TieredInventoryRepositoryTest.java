@@ -0,0 +1,223 @@
+package com.example.library.repository;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.BookType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TieredInventoryRepositoryTest {
+    private static final long SMALL_BUDGET = 20 * TieredInventoryRepository.ITEM_OVERHEAD_BYTES;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void spillsColdItemsAndReadsThemBack() {
+        try (TieredInventoryRepository repository = new TieredInventoryRepository(directory, SMALL_BUDGET, 100)) {
+            for (int i = 0; i < 200; i++) {
+                repository.addBook(book(i), 2);
+            }
+
+            assertThat(repository.hotItemCount()).isLessThan(20);
+            assertThat(repository.hotBytes()).isLessThanOrEqualTo(SMALL_BUDGET);
+            assertThat(repository.segmentCount()).isPositive();
+            for (int i = 0; i < 200; i++) {
+                assertThat(repository.findByIsbn(isbn(i))).get()
+                        .extracting(InventoryItem::totalCopies)
+                        .isEqualTo(2);
+            }
+        }
+    }
+
+    @Test
+    void updatesToColdItemsWinOverOlderCopies() {
+        try (TieredInventoryRepository repository = new TieredInventoryRepository(directory, SMALL_BUDGET, 100)) {
+            for (int i = 0; i < 100; i++) {
+                repository.addBook(book(i), 2);
+            }
+            assertThat(repository.tryBorrow(isbn(0))).isTrue();
+            repository.addBook(book(1), 3);
+            for (int i = 100; i < 200; i++) {
+                repository.addBook(book(i), 1);
+            }
+
+            assertThat(repository.findByIsbn(isbn(0)).get().borrowedCopies()).isEqualTo(1);
+            assertThat(repository.findByIsbn(isbn(1)).get().totalCopies()).isEqualTo(5);
+            assertThat(repository.totalBorrowedCount()).isEqualTo(1);
+            assertThatThrownBy(() -> repository.addBook(
+                    new Book(isbn(2), "Other", "Someone", BookType.NORMAL), 1))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void keepsItemsInMemoryWhenSpillingFails() throws IOException {
+        try (TieredInventoryRepository repository = new TieredInventoryRepository(directory, SMALL_BUDGET, 100)) {
+            Path segmentDirectory;
+            try (Stream<Path> children = Files.list(directory)) {
+                segmentDirectory = children.findFirst().orElseThrow();
+            }
+            Files.delete(segmentDirectory);
+
+            int failedAt = -1;
+            for (int i = 0; i < 100 && failedAt < 0; i++) {
+                try {
+                    repository.addBook(book(i), 2);
+                } catch (UncheckedIOException e) {
+                    failedAt = i;
+                }
+            }
+            assertThat(failedAt).isPositive();
+            assertThat(repository.segmentCount()).isZero();
+
+            Files.createDirectory(segmentDirectory);
+            for (int i = 0; i <= failedAt; i++) {
+                assertThat(repository.findByIsbn(isbn(i))).get()
+                        .extracting(InventoryItem::totalCopies)
+                        .isEqualTo(2);
+            }
+            assertThat(repository.segmentCount()).isPositive();
+        }
+    }
+
+    @Test
+    void unknownIsbnsNeverReachDisk() {
+        try (TieredInventoryRepository repository = new TieredInventoryRepository(directory, SMALL_BUDGET, 100)) {
+            for (int i = 0; i < 500; i++) {
+                repository.addBook(book(i), 1);
+            }
+            long readsBefore = repository.diskReads();
+
+            for (int i = 0; i < 1000; i++) {
+                assertThat(repository.findByIsbn("unknown-" + i)).isEmpty();
+                assertThat(repository.findByIsbn(isbn(1000 + i))).isEmpty();
+                assertThat(repository.tryBorrow(isbn(1000 + i))).isFalse();
+            }
+
+            assertThat(repository.segmentCount()).isPositive();
+            assertThat(repository.diskReads()).isEqualTo(readsBefore);
+        }
+    }
+
+    @Test
+    void compactionMergesSegmentsKeepingNewestCopies() {
+        try (TieredInventoryRepository repository = new TieredInventoryRepository(directory, SMALL_BUDGET, 100)) {
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 100; i++) {
+                    repository.addBook(book(i), 1);
+                }
+            }
+            assertThat(repository.segmentCount()).isGreaterThan(1);
+
+            repository.compact().join();
+
+            assertThat(repository.segmentCount()).isEqualTo(1);
+            for (int i = 0; i < 100; i++) {
+                assertThat(repository.findByIsbn(isbn(i)).get().totalCopies()).isEqualTo(3);
+            }
+        }
+    }
+
+    @Test
+    void compactsInBackgroundOnceSegmentLimitIsExceeded() {
+        try (TieredInventoryRepository compacted = new TieredInventoryRepository(directory, SMALL_BUDGET, 2);
+             TieredInventoryRepository uncompacted = new TieredInventoryRepository(directory, SMALL_BUDGET, 1000)) {
+            for (int i = 0; i < 300; i++) {
+                compacted.addBook(book(i), 1);
+                uncompacted.addBook(book(i), 1);
+            }
+            compacted.compact().join();
+
+            assertThat(compacted.segmentCount()).isLessThan(uncompacted.segmentCount());
+            assertThat(compacted.streamAll().count()).isEqualTo(300);
+            for (int i = 0; i < 300; i++) {
+                assertThat(compacted.findByIsbn(isbn(i))).isPresent();
+            }
+        }
+    }
+
+    @Test
+    void backgroundCompactionLeavesLargerTiersAlone() throws IOException {
+        try (TieredInventoryRepository repository = new TieredInventoryRepository(directory, SMALL_BUDGET, 4)) {
+            for (int i = 0; i < 300; i++) {
+                repository.addBook(book(i), 1);
+            }
+            repository.latestCompaction().join();
+            repository.compact().join();
+            assertThat(repository.segmentCount()).isEqualTo(1);
+            Path largest;
+            try (Stream<Path> files = Files.walk(directory)) {
+                largest = files.filter(file -> file.getFileName().toString().startsWith("segment-")).findFirst()
+                        .orElseThrow();
+            }
+
+            for (int i = 300; i < 400; i++) {
+                repository.addBook(book(i), 1);
+            }
+            repository.latestCompaction().join();
+
+            assertThat(Files.exists(largest)).isTrue();
+            assertThat(repository.segmentCount()).isGreaterThan(1);
+            assertThat(repository.streamAll().count()).isEqualTo(400);
+            for (int i = 0; i < 400; i++) {
+                assertThat(repository.findByIsbn(isbn(i))).isPresent();
+            }
+        }
+    }
+
+    @Test
+    void prefixQueriesAndStreamsSeeColdItems() {
+        try (TieredInventoryRepository repository = new TieredInventoryRepository(directory, SMALL_BUDGET, 100)) {
+            repository.addBook(new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL), 1);
+            for (int i = 0; i < 100; i++) {
+                repository.addBook(book(i), 1);
+            }
+
+            assertThat(repository.findByAuthor("hom").get())
+                    .extracting(item -> item.book().title())
+                    .containsExactly("The Odyssey");
+            assertThat(repository.streamByTitle("the od").count()).isEqualTo(1);
+            assertThat(repository.streamAll().count()).isEqualTo(101);
+        }
+    }
+
+    @Test
+    void scansReadReplacedSegmentsUntilTheyFinish() {
+        try (TieredInventoryRepository repository = new TieredInventoryRepository(directory, SMALL_BUDGET, 1000)) {
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 300; i++) {
+                    repository.addBook(book(i), 1);
+                }
+            }
+            assertThat(repository.segmentCount()).isGreaterThan(1);
+
+            CompletableFuture<Void> compaction = repository.compact();
+            do {
+                assertThat(repository.streamAll().count()).isEqualTo(300);
+                assertThat(repository.findByAuthor("author 3").get()).hasSize(43);
+            } while (!compaction.isDone());
+            compaction.join();
+
+            assertThat(repository.segmentCount()).isEqualTo(1);
+            assertThat(repository.streamAll()).allMatch(item -> item.totalCopies() == 3);
+        }
+    }
+
+    private static Book book(int i) {
+        return new Book(isbn(i), "Title " + i, "Author " + (i % 7), BookType.NORMAL);
+    }
+
+    private static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+}
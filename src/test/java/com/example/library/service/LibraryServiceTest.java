@@ -50,6 +50,51 @@ class LibraryServiceTest {
         assertThat(library.remainingByAuthor("Homer")).isEqualTo(1);
     }
 
+    @Test
+    void streamsMatchesLazily() {
+        Library library = new LibraryService(new InMemoryInventoryRepository());
+        Book odyssey = new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL);
+        Book iliad = new Book("9780140449181", "The Iliad", "Homer", BookType.NORMAL);
+        Book dictionary = new Book("9780199535569", "Oxford English Dictionary", "Oxford", BookType.REFERENCE);
+
+        library.addBook(odyssey, 2);
+        library.addBook(iliad, 1);
+        library.addBook(dictionary, 1);
+
+        assertThat(library.streamByAuthor("hom"))
+                .extracting(availability -> availability.book().title())
+                .containsExactlyInAnyOrder("The Odyssey", "The Iliad");
+        assertThat(library.streamByTitle("oxford"))
+                .extracting(availability -> availability.book().isbn())
+                .containsExactly("9780199535569");
+        assertThat(library.streamAll()).hasSize(3);
+        assertThat(library.streamByAuthor(" ")).isEmpty();
+    }
+
+    @Test
+    void suggestsMostBorrowedTitlesAndAuthorsFirst() {
+        Library library = new LibraryService(new InMemoryInventoryRepository());
+        Book odyssey = new Book("9780140449136", "The Odyssey", "Homer", BookType.NORMAL);
+        Book iliad = new Book("9780140449181", "The Iliad", "Homer", BookType.NORMAL);
+        Book hobbit = new Book("9780261102217", "The Hobbit", "Tolkien", BookType.NORMAL);
+
+        library.addBook(odyssey, 5);
+        library.addBook(iliad, 5);
+        library.addBook(hobbit, 5);
+        library.borrow(hobbit.isbn());
+        library.borrow(hobbit.isbn());
+        library.borrow(iliad.isbn());
+
+        assertThat(library.suggest("the", 2))
+                .extracting(availability -> availability.book().title())
+                .containsExactly("The Hobbit", "The Iliad");
+        assertThat(library.suggest("HO", 10))
+                .extracting(availability -> availability.book().title())
+                .containsExactly("The Iliad", "The Odyssey");
+        assertThat(library.suggest("the odyssey by homer, translated", 10)).isEmpty();
+        assertThat(library.suggest(" ", 10)).isEmpty();
+    }
+
     @Test
     void blankQueriesReturnEmptyOptionals() {
         Library library = new LibraryService(new InMemoryInventoryRepository());